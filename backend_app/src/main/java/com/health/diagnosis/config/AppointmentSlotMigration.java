@@ -0,0 +1,88 @@
+package com.health.diagnosis.config;
+
+import com.health.diagnosis.entity.TimeSlots;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Fills slot_start / slot_end for appointments saved before those columns
+// existed, by parsing their time_slot label, then active_slot and version.
+// Runs before the seeder and the slot index warm-up; rows it cannot parse are
+// left NULL and reported.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class AppointmentSlotMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> unparsed = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, time_slot FROM appointments WHERE slot_start IS NULL",
+                rs -> {
+                    try {
+                        int[] range = TimeSlots.parse(rs.getString(2));
+                        updates.add(new Object[] { range[0], range[1], rs.getLong(1) });
+                    } catch (IllegalArgumentException e) {
+                        unparsed.add(rs.getLong(1));
+                    }
+                });
+
+        for (int i = 0; i < updates.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE appointments SET slot_start = ?, slot_end = ? WHERE id = ?",
+                    updates.subList(i, Math.min(i + BATCH_SIZE, updates.size())));
+        }
+        if (!updates.isEmpty()) {
+            System.out.println("✓ Migrated time slots of " + updates.size() + " appointments");
+        }
+        if (!unparsed.isEmpty()) {
+            System.err.println("Appointments with unrecognised time slots: " + unparsed);
+        }
+
+        jdbcTemplate.update("UPDATE appointments SET version = 0 WHERE version IS NULL");
+        migrateActiveSlots();
+    }
+
+    // Older rows may hold double bookings; the oldest keeps the slot, later ones are reported
+    private void migrateActiveSlots() {
+        Set<String> taken = new HashSet<>();
+        jdbcTemplate.query("SELECT doctor_id, appointment_date, active_slot FROM appointments "
+                + "WHERE active_slot IS NOT NULL",
+                rs -> {
+                    taken.add(rs.getLong(1) + "|" + rs.getDate(2) + "|" + rs.getInt(3));
+                });
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> duplicates = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, doctor_id, appointment_date, slot_start FROM appointments "
+                + "WHERE active_slot IS NULL AND slot_start IS NOT NULL AND status <> 'CANCELLED' ORDER BY id",
+                rs -> {
+                    if (taken.add(rs.getLong(2) + "|" + rs.getDate(3) + "|" + rs.getInt(4))) {
+                        updates.add(new Object[] { rs.getInt(4), rs.getLong(1) });
+                    } else {
+                        duplicates.add(rs.getLong(1));
+                    }
+                });
+
+        for (int i = 0; i < updates.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE appointments SET active_slot = ? WHERE id = ?",
+                    updates.subList(i, Math.min(i + BATCH_SIZE, updates.size())));
+        }
+        if (!duplicates.isEmpty()) {
+            System.err.println("Double-booked appointments left without an active slot: " + duplicates);
+        }
+    }
+}
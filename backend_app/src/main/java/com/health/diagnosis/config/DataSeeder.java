@@ -233,9 +233,10 @@ public class DataSeeder implements CommandLineRunner {
 
                         Random random = new Random();
                         List<Appointment> appointments = new ArrayList<>();
+                        Set<String> takenSlots = new HashSet<>();
 
                         // Create mix of past, today, and future appointments
-                        for (int i = 0; i < 15; i++) {
+                        while (appointments.size() < 15) {
                                 User doctor = doctors.get(random.nextInt(doctors.size()));
                                 User patient = patients.get(random.nextInt(patients.size()));
 
@@ -243,6 +244,11 @@ public class DataSeeder implements CommandLineRunner {
                                 String[] timeSlots = { "9:00 AM - 9:30 AM", "10:00 AM - 10:30 AM",
                                                 "11:00 AM - 11:30 AM",
                                                 "2:00 PM - 2:30 PM", "3:00 PM - 3:30 PM", "4:00 PM - 4:30 PM" };
+                                String timeSlot = timeSlots[random.nextInt(timeSlots.length)];
+
+                                // One booking per doctor slot (unique constraint)
+                                if (!takenSlots.add(doctor.getId() + "|" + date + "|" + timeSlot))
+                                        continue;
 
                                 AppointmentStatus status;
                                 if (date.isBefore(LocalDate.now())) {
@@ -259,7 +265,7 @@ public class DataSeeder implements CommandLineRunner {
                                                 .patient(patient)
                                                 .doctor(doctor)
                                                 .appointmentDate(date)
-                                                .timeSlot(timeSlots[random.nextInt(timeSlots.length)])
+                                                .timeSlot(timeSlot)
                                                 .status(status)
                                                 .notes("Regular checkup and consultation")
                                                 .build();
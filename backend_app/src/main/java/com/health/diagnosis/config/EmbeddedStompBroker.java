@@ -0,0 +1,326 @@
+package com.health.diagnosis.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal in-process STOMP 1.2 broker so relay mode can run without RabbitMQ
+// or ActiveMQ: one node sets app.websocket.embedded-broker.enabled=true and
+// every node (including that one) relays to it. It supports CONNECT,
+// SUBSCRIBE, UNSUBSCRIBE, SEND, DISCONNECT and receipts, with exact-match
+// topics, no persistence and no heart-beats. It is meant for development and
+// multi-node testing; use a real broker in production.
+@Component
+@ConditionalOnProperty(name = "app.websocket.embedded-broker.enabled", havingValue = "true")
+public class EmbeddedStompBroker {
+
+    private final String bindAddress;
+    private final int port;
+    private final String login;
+    private final String passcode;
+
+    // destination -> subscribers
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public EmbeddedStompBroker(@Value("${app.websocket.embedded-broker.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${app.websocket.embedded-broker.port:61613}") int port,
+            @Value("${app.websocket.embedded-broker.login:guest}") String login,
+            @Value("${app.websocket.embedded-broker.passcode:guest}") String passcode) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.login = login;
+        this.passcode = passcode;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 100, InetAddress.getByName(bindAddress));
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "stomp-broker-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("✓ Embedded STOMP broker listening on " + bindAddress + ":" + port);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        int count = 0;
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "stomp-broker-conn-" + (++count));
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Embedded STOMP broker accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ROUTING
+    private void publish(Frame send) {
+        String destination = send.headers.get("destination");
+        Set<Subscription> targets = subscriptions.get(destination);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        String messageId = Long.toString(messageIds.incrementAndGet());
+        for (Subscription subscription : targets) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("subscription", subscription.id());
+            headers.put("message-id", messageId);
+            send.headers.forEach((name, value) -> {
+                if (!name.equals("receipt") && !name.equals("transaction")) {
+                    headers.put(name, value);
+                }
+            });
+            subscription.connection().write(new Frame("MESSAGE", headers, send.body));
+        }
+    }
+
+    private record Subscription(Connection connection, String id) {
+    }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {
+    }
+
+    // CONNECTIONS
+    private final class Connection {
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final Map<String, Subscription> byId = new ConcurrentHashMap<>();
+        private final Map<String, String> destinationById = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void readLoop() {
+            try {
+                Frame frame;
+                while ((frame = readFrame()) != null) {
+                    if (!handle(frame)) {
+                        break;
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // Peer went away
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Embedded STOMP broker dropped a connection: " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        // false ends the connection
+        private boolean handle(Frame frame) {
+            switch (frame.command()) {
+                case "CONNECT", "STOMP" -> {
+                    if (!login.equals(frame.headers().get("login"))
+                            || !passcode.equals(frame.headers().get("passcode"))) {
+                        write(new Frame("ERROR", Map.of("message", "Bad credentials"), new byte[0]));
+                        return false;
+                    }
+                    write(new Frame("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]));
+                }
+                case "SUBSCRIBE" -> {
+                    String id = frame.headers().get("id");
+                    String destination = frame.headers().get("destination");
+                    Subscription subscription = new Subscription(this, id);
+                    byId.put(id, subscription);
+                    destinationById.put(id, destination);
+                    subscriptions.computeIfAbsent(destination, d -> ConcurrentHashMap.newKeySet()).add(subscription);
+                }
+                case "UNSUBSCRIBE" -> unsubscribe(frame.headers().get("id"));
+                case "SEND" -> publish(frame);
+                case "DISCONNECT" -> {
+                    receipt(frame);
+                    return false;
+                }
+                default -> {
+                    write(new Frame("ERROR", Map.of("message", "Unsupported command " + frame.command()),
+                            new byte[0]));
+                    return false;
+                }
+            }
+            receipt(frame);
+            return true;
+        }
+
+        private void receipt(Frame frame) {
+            String receipt = frame.headers().get("receipt");
+            if (receipt != null) {
+                write(new Frame("RECEIPT", Map.of("receipt-id", receipt), new byte[0]));
+            }
+        }
+
+        private void unsubscribe(String id) {
+            Subscription subscription = id == null ? null : byId.remove(id);
+            String destination = id == null ? null : destinationById.remove(id);
+            if (subscription != null && destination != null) {
+                subscriptions.computeIfPresent(destination, (d, set) -> {
+                    set.remove(subscription);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+
+        void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            for (String id : Set.copyOf(byId.keySet())) {
+                unsubscribe(id);
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+
+        // Called from whichever thread published; one frame at a time per connection
+        synchronized void write(Frame frame) {
+            try {
+                StringBuilder head = new StringBuilder(frame.command()).append('\n');
+                frame.headers().forEach((name, value) -> head.append(escape(name)).append(':')
+                        .append(escape(value)).append('\n'));
+                if (frame.body().length > 0 && !frame.headers().containsKey("content-length")) {
+                    head.append("content-length:").append(frame.body().length).append('\n');
+                }
+                head.append('\n');
+                out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+                out.write(frame.body());
+                out.write(0);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        // null at end of stream
+        private Frame readFrame() throws IOException {
+            String command;
+            do {
+                command = readLine();
+                if (command == null) {
+                    return null;
+                }
+            } while (command.isEmpty()); // Heart-beat EOLs between frames
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    // First occurrence wins (STOMP 1.2 section "Repeated Header Entries")
+                    headers.putIfAbsent(unescape(line.substring(0, colon)), unescape(line.substring(colon + 1)));
+                }
+            }
+            if (line == null) {
+                throw new EOFException();
+            }
+
+            byte[] body;
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+                if (in.read() != 0) {
+                    throw new IOException("Frame body not terminated by NUL");
+                }
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) > 0) {
+                    buffer.write(b);
+                }
+                if (b < 0) {
+                    throw new EOFException();
+                }
+                body = buffer.toByteArray();
+            }
+            return new Frame(command, headers, body);
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+                }
+                line.write(b);
+            }
+            String value = line.toString(StandardCharsets.UTF_8);
+            return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n").replace(":", "\\c");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(switch (next) {
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    case 'c' -> ':';
+                    default -> next;
+                });
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
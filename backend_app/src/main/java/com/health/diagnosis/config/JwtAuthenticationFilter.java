@@ -1,5 +1,7 @@
 package com.health.diagnosis.config;
 
+import com.health.diagnosis.entity.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -38,11 +41,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        final Claims claims = jwtService.parseToken(jwt);
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            String cacheKey = PrincipalCache.key(userEmail, jwtService.extractTokenId(claims));
+            UserDetails userDetails;
+            PrincipalCache.Snapshot cached = principalCache.get(cacheKey);
+            if (cached != null) {
+                userDetails = cached.toUser();
+            } else {
+                userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                if (userDetails instanceof User user) {
+                    PrincipalCache.Snapshot snapshot = PrincipalCache.Snapshot.of(user);
+                    principalCache.put(cacheKey, snapshot);
+                    // Same shape on a miss as on a hit
+                    userDetails = snapshot.toUser();
+                }
+            }
+            if (jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -1,17 +1,21 @@
 package com.health.diagnosis.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -20,12 +24,43 @@ public class JwtService {
     private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970"; // 256-bit
                                                                                                                  // hex
 
+    // Decoded once; the parser is immutable and thread-safe
+    private final Key signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+
+    // Tokens that already passed signature verification, kept until they expire.
+    // Keyed by the full token so a lookup can only match the exact same string.
+    private final int verifiedCacheSize;
+    private final Map<String, Claims> verifiedTokens;
+
+    public JwtService(@Value("${app.security.jwt.verified-cache-size:1024}") int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > JwtService.this.verifiedCacheSize;
+            }
+        };
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Token id (jti); tokens issued before ids were added fall back to issued-at
+    public String extractTokenId(String token) {
+        return extractTokenId(parseToken(token));
+    }
+
+    public String extractTokenId(Claims claims) {
+        if (claims.getId() != null) {
+            return claims.getId();
+        }
+        return claims.getIssuedAt() != null ? String.valueOf(claims.getIssuedAt().getTime()) : "";
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
@@ -37,35 +72,50 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24 hours
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(parseToken(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username.equals(userDetails.getUsername())) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    // Verifies the signature once and returns the claims for reuse by the caller
+    public Claims parseToken(String token) {
+        if (verifiedCacheSize <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        Claims claims;
+        synchronized (verifiedTokens) {
+            claims = verifiedTokens.get(token);
+        }
+        if (claims != null) {
+            if (!isTokenExpired(claims)) {
+                return claims;
+            }
+            synchronized (verifiedTokens) {
+                verifiedTokens.remove(token);
+            }
+        }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        // Throws ExpiredJwtException once the token is past its expiry
+        claims = parser.parseClaimsJws(token).getBody();
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(token, claims);
+        }
+        return claims;
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 }
@@ -0,0 +1,130 @@
+package com.health.diagnosis.config;
+
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caches an immutable snapshot of the authenticated user per (subject, token id)
+// so the JWT filter does not hit the database on every request. Each request gets
+// its own User built from the snapshot, never a shared entity instance. Entries share one TTL, so insertion
+// order is also expiry order and the head of the map is always the eldest.
+// Nothing invalidates entries on other instances, so a disabled account or a
+// role change reaches them only when the TTL runs out.
+@Component
+public class PrincipalCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PrincipalCache(
+            @Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${app.security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public static String key(String subject, String tokenId) {
+        return subject + "|" + tokenId;
+    }
+
+    public Snapshot get(String key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (now - entry.expiresAt > 0) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.principal;
+        }
+    }
+
+    public void put(String key, Snapshot principal) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.remove(key);
+            entries.put(key, new Entry(principal, now + ttlNanos));
+
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry eldest = it.next();
+                if (entries.size() <= maxSize && now - eldest.expiresAt <= 0) {
+                    break;
+                }
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Drop every cached token for this user, e.g. after a profile or role change
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.values().removeIf(entry -> userId.equals(entry.principal.id()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Map<String, Long> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+                "size", (long) size,
+                "maxSize", (long) maxSize,
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "evictions", evictions.get());
+    }
+
+    // Only the identity fields controllers read from the principal (authorities follow
+    // from the role); profile and doctor fields must be loaded from the repository
+    public record Snapshot(Long id, String email, String fullName, Role role, boolean enabled) {
+
+        public static Snapshot of(User user) {
+            return new Snapshot(user.getId(), user.getEmail(), user.getFullName(), user.getRole(),
+                    user.isEnabled());
+        }
+
+        public User toUser() {
+            return User.builder()
+                    .id(id)
+                    .email(email)
+                    .fullName(fullName)
+                    .role(role)
+                    .isEnabled(enabled)
+                    .build();
+        }
+    }
+
+    private record Entry(Snapshot principal, long expiresAt) {
+    }
+}
@@ -1,23 +1,193 @@
 package com.health.diagnosis.config;
 
+import com.health.diagnosis.service.BrokerMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final BrokerMetrics brokerMetrics;
+
+    // simple: in-memory broker, only reaches clients on this JVM.
+    // relay: every node forwards /topic traffic to one external STOMP broker
+    // (RabbitMQ, ActiveMQ, or EmbeddedStompBroker on one of the nodes), so a
+    // message published on any node reaches subscribers on all of them.
+    // Only /topic traffic is shared: presence, unread counters and the other
+    // in-memory stores stay per node (see "Running Several Instances" in the README).
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${app.websocket.relay.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${app.websocket.relay.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${app.websocket.relay.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${app.websocket.relay.virtual-host:}")
+    private String virtualHost;
+
+    // STOMP heart-beats in both directions (0 disables), so half-open mobile
+    // connections are noticed and their sessions released
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Channel executors: pool (bounded ThreadPoolTaskExecutor) or virtual (Java 21+)
+    @Value("${app.websocket.inbound.executor:pool}")
+    private String inboundExecutor;
+
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.executor:pool}")
+    private String outboundExecutor;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    // Keep each session's frames in order despite the pooled channels
+    @Value("${app.websocket.preserve-order:true}")
+    private boolean preserveOrder;
+
+    // Per-session limits. Frames for a session that is not keeping up are buffered;
+    // past either limit the session is closed rather than holding up the outbound pool.
+    @Value("${app.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.transport.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMs;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    public WebSocketConfig(BrokerMetrics brokerMetrics) {
+        this.brokerMetrics = brokerMetrics;
+    }
+
+    // Lazy: the scheduler is itself created by the broker configuration
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler scheduler) {
+        this.messageBrokerTaskScheduler = scheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker to carry the messages back to the
-        // client on destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs);
+            if (!virtualHost.isBlank()) {
+                relay.setVirtualHost(virtualHost);
+            }
+        } else {
+            // Enable a simple memory-based message broker to carry the messages back to the
+            // client on destinations prefixed with "/topic"
+            config.enableSimpleBroker("/topic")
+                    .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         // Designate the prefix for messages that are bound for methods annotated with
         // @MessageMapping
         config.setApplicationDestinationPrefixes("/app");
+        config.setPreservePublishOrder(preserveOrder);
+        config.configureBrokerChannel().interceptors(brokerMetrics.publishedInterceptor());
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, "inbound", inboundExecutor,
+                inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, "outbound", outboundExecutor,
+                outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity);
+        registration.interceptors(brokerMetrics.deliveredInterceptor());
+    }
+
+    private static void configureExecutor(ChannelRegistration registration, String channel, String type,
+            int corePoolSize, int maxPoolSize, int queueCapacity) {
+        if ("virtual".equalsIgnoreCase(type)) {
+            if (Runtime.version().feature() >= 21) {
+                registration.executor(new VirtualThreadTaskExecutor("ws-" + channel + "-"));
+                return;
+            }
+            System.err.println("Virtual threads need Java 21+, using a thread pool for the " + channel + " channel");
+        }
+        registration.taskExecutor()
+                .corePoolSize(corePoolSize)
+                .maxPoolSize(maxPoolSize)
+                .queueCapacity(queueCapacity)
+                .keepAliveSeconds(60);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMs)
+                .addDecoratorFactory(brokerMetrics.sessionDecorator());
+    }
+
+    // Tomcat rejects text frames over 8 KB by default, below the STOMP message size limit
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(messageSizeLimit);
+        container.setMaxBinaryMessageBufferSize(messageSizeLimit);
+        return container;
     }
 
     @Override
@@ -27,5 +197,6 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Allowed origins set to "*" for development ease (should be restricted in
         // prod)
         registry.addEndpoint("/ws-chat").setAllowedOriginPatterns("*").withSockJS();
+        registry.setPreserveReceiveOrder(preserveOrder);
     }
 }
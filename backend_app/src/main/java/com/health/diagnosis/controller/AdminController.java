@@ -1,19 +1,36 @@
 package com.health.diagnosis.controller;
 
+import com.health.diagnosis.config.PrincipalCache;
+import com.health.diagnosis.dto.AppointmentView;
+import com.health.diagnosis.dto.AppointmentViewPage;
+import com.health.diagnosis.dto.BrokerStats;
+import com.health.diagnosis.dto.UserSummaryPage;
 import com.health.diagnosis.entity.Appointment;
 import com.health.diagnosis.entity.Question;
 import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.AppointmentStatus;
 import com.health.diagnosis.enums.Role;
 import com.health.diagnosis.repository.AppointmentRepository;
 import com.health.diagnosis.repository.QuestionRepository;
 import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.service.BookingService;
+import com.health.diagnosis.service.DiagnosisSummaryService;
+import com.health.diagnosis.service.DirectoryService;
+import com.health.diagnosis.service.BrokerMetrics;
+import com.health.diagnosis.service.MetricsRollup;
+import com.health.diagnosis.service.QuestionnaireStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -21,25 +38,59 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AdminController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserRepository userRepository;
     private final AppointmentRepository appointmentRepository;
     private final QuestionRepository questionRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final MetricsRollup metricsRollup;
+    private final BrokerMetrics brokerMetrics;
+    private final BookingService bookingService;
+    private final QuestionnaireStore questionnaireStore;
+    private final DiagnosisSummaryService diagnosisSummaryService;
+    private final DirectoryService directoryService;
 
     // USER MANAGEMENT
+    // Keyset pages: /api/admin/users?role=DOCTOR&search=sharma&sort=name&cursor=...&size=50
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userRepository.findAll());
+    public ResponseEntity<UserSummaryPage> getUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(directoryService.listUsers(role, search, sort, cursor, size));
     }
 
     @GetMapping("/users/patients")
-    public ResponseEntity<List<User>> getAllPatients() {
-        return ResponseEntity.ok(userRepository.findByRole(Role.PATIENT));
+    public ResponseEntity<UserSummaryPage> getPatients(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(directoryService.listUsers(Role.PATIENT, search, sort, cursor, size));
     }
 
     @GetMapping("/users/doctors")
-    public ResponseEntity<List<User>> getAllDoctors() {
-        return ResponseEntity.ok(userRepository.findByRole(Role.DOCTOR));
+    public ResponseEntity<UserSummaryPage> getDoctors(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(directoryService.listUsers(Role.DOCTOR, search, sort, cursor, size));
+    }
+
+    // Every matching user, one JSON object per line
+    @GetMapping(value = "/users/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(directoryService.exportUsers(role, search, sort));
     }
 
     @PostMapping("/users")
@@ -64,6 +115,8 @@ public class AdminController {
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            principalCache.evictUser(id);
+            diagnosisSummaryService.delete(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -109,38 +162,85 @@ public class AdminController {
                 user.setExperience(updatedData.getExperience());
                 user.setVerified(updatedData.isVerified()); // Admin can verify doctors
             }
-            return ResponseEntity.ok(userRepository.save(user));
+            User saved = userRepository.save(user);
+            principalCache.evictUser(id);
+            return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/cache/principals")
+    public ResponseEntity<Map<String, Long>> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.stats());
+    }
+
+    // METRICS
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(metricsRollup.snapshot());
+    }
+
+    @GetMapping("/metrics/broker")
+    public ResponseEntity<BrokerStats> getBrokerMetrics() {
+        return ResponseEntity.ok(brokerMetrics.snapshot());
+    }
+
+    @GetMapping("/metrics/bookings")
+    public ResponseEntity<List<Map<String, Object>>> getBookingsPerDay(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(metricsRollup.bookingsPerDay(Math.max(1, Math.min(days, 365))));
+    }
+
     // APPOINTMENT MANAGEMENT
+    // Keyset pages, newest first by default (sort=oldest to reverse); from/to are inclusive dates
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getAllAppointments() {
-        return ResponseEntity.ok(appointmentRepository.findAll());
+    public ResponseEntity<AppointmentViewPage> getAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(directoryService.listAppointments(status, doctorId, patientId, from, to, sort,
+                cursor, size));
+    }
+
+    @GetMapping(value = "/appointments/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(required = false) String sort) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"appointments.ndjson\"")
+                .body(directoryService.exportAppointments(status, doctorId, patientId, from, to, sort));
     }
 
     @PutMapping("/appointments/{id}")
-    public ResponseEntity<Appointment> updateAppointment(@PathVariable Long id, @RequestBody Appointment updated) {
+    public ResponseEntity<AppointmentView> updateAppointment(@PathVariable Long id, @RequestBody Appointment updated) {
         return appointmentRepository.findById(id).map(apt -> {
-            apt.setAppointmentDate(updated.getAppointmentDate());
-            apt.setTimeSlot(updated.getTimeSlot());
-            apt.setStatus(updated.getStatus());
-            apt.setNotes(updated.getNotes());
-            return ResponseEntity.ok(appointmentRepository.save(apt));
+            try {
+                bookingService.update(apt, updated.getAppointmentDate(), updated.getTimeSlot(), updated.getStatus(),
+                        updated.getNotes());
+            } catch (BookingService.SlotTakenException | OptimisticLockingFailureException e) {
+                return ResponseEntity.status(409).<AppointmentView>build();
+            }
+            return ResponseEntity.of(appointmentRepository.findViewById(id));
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/appointments/{id}")
     public ResponseEntity<Void> deleteAppointment(@PathVariable Long id) {
-        if (appointmentRepository.existsById(id)) {
-            appointmentRepository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return appointmentRepository.findById(id).map(apt -> {
+            bookingService.delete(apt);
+            return ResponseEntity.ok().<Void>build();
+        }).orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/appointments")
-    public ResponseEntity<Appointment> createAppointment(
+    public ResponseEntity<AppointmentView> createAppointment(
             @RequestBody com.health.diagnosis.dto.AppointmentRequest request) {
         User patient = userRepository.findById(request.getPatientId())
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
@@ -153,10 +253,14 @@ public class AdminController {
                 .appointmentDate(request.getAppointmentDate())
                 .timeSlot(request.getTimeSlot())
                 .notes(request.getNotes())
-                .status(com.health.diagnosis.enums.AppointmentStatus.CONFIRMED) // Admins usually confirm directly
+                .status(AppointmentStatus.CONFIRMED) // Admins usually confirm directly
                 .build();
 
-        return ResponseEntity.ok(appointmentRepository.save(appointment));
+        try {
+            return ResponseEntity.ok(AppointmentView.from(bookingService.book(appointment)));
+        } catch (BookingService.SlotTakenException e) {
+            return ResponseEntity.status(409).build();
+        }
     }
 
     // QUESTION MANAGEMENT
@@ -167,7 +271,9 @@ public class AdminController {
 
     @PostMapping("/questions")
     public ResponseEntity<Question> createQuestion(@RequestBody Question question) {
-        return ResponseEntity.ok(questionRepository.save(question));
+        Question saved = questionRepository.save(question);
+        questionnaireStore.reload();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/questions/{id}")
@@ -176,7 +282,9 @@ public class AdminController {
                 .map(question -> {
                     question.setText(updated.getText());
                     question.setCategory(updated.getCategory());
-                    return ResponseEntity.ok(questionRepository.save(question));
+                    Question saved = questionRepository.save(question);
+                    questionnaireStore.reload();
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -185,6 +293,7 @@ public class AdminController {
     public ResponseEntity<Void> deleteQuestion(@PathVariable Long id) {
         if (questionRepository.existsById(id)) {
             questionRepository.deleteById(id);
+            questionnaireStore.reload();
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
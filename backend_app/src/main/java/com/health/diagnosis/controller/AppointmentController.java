@@ -1,12 +1,17 @@
 package com.health.diagnosis.controller;
 
 import com.health.diagnosis.dto.AppointmentRequest;
+import com.health.diagnosis.dto.AppointmentView;
 import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.TimeSlots;
 import com.health.diagnosis.entity.User;
 import com.health.diagnosis.enums.AppointmentStatus;
 import com.health.diagnosis.repository.AppointmentRepository;
 import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.service.BookingService;
+import com.health.diagnosis.service.SlotAvailabilityIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/appointments")
@@ -23,16 +29,25 @@ public class AppointmentController {
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final com.health.diagnosis.service.NotificationService notificationService;
+    private final com.health.diagnosis.service.DashboardStatsService dashboardStatsService;
+    private final SlotAvailabilityIndex slotIndex;
+    private final BookingService bookingService;
+
+    private static final int MAX_AVAILABILITY_DAYS = 62;
 
     @PostMapping("/book")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<Appointment> bookAppointment(
+    public ResponseEntity<AppointmentView> bookAppointment(
             @RequestBody AppointmentRequest request,
             @AuthenticationPrincipal User patient) {
 
         User doctor = userRepository.findById(request.getDoctorId())
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
+        if (request.getAppointmentDate() == null || request.getAppointmentDate().isBefore(LocalDate.now())) {
+            return ResponseEntity.badRequest().build();
+        }
+
         Appointment appointment = Appointment.builder()
                 .patient(patient)
                 .doctor(doctor)
@@ -42,7 +57,13 @@ public class AppointmentController {
                 .status(AppointmentStatus.PENDING)
                 .build();
 
-        appointment = appointmentRepository.save(appointment);
+        try {
+            appointment = bookingService.book(appointment);
+        } catch (BookingService.SlotTakenException e) {
+            return ResponseEntity.status(409).build();
+        }
+        dashboardStatsService.evict(patient.getId());
+        dashboardStatsService.evict(doctor.getId());
 
         // Send notification to doctor
         notificationService.createNotification(
@@ -52,38 +73,38 @@ public class AppointmentController {
                 "New appointment from " + patient.getFullName() + " on " + request.getAppointmentDate(),
                 appointment.getId());
 
-        return ResponseEntity.ok(appointment);
+        return ResponseEntity.ok(AppointmentView.from(appointment));
     }
 
     @GetMapping("/my-appointments")
-    public ResponseEntity<List<Appointment>> getMyAppointments(@AuthenticationPrincipal User user) {
-        List<Appointment> appointments;
+    public ResponseEntity<List<AppointmentView>> getMyAppointments(@AuthenticationPrincipal User user) {
+        List<AppointmentView> appointments;
 
         if (user.getRole().name().equals("DOCTOR")) {
-            appointments = appointmentRepository.findByDoctor(user);
+            appointments = appointmentRepository.findViewsByDoctor(user.getId());
         } else {
-            appointments = appointmentRepository.findByPatient(user);
+            appointments = appointmentRepository.findViewsByPatient(user.getId());
         }
 
         return ResponseEntity.ok(appointments);
     }
 
     @GetMapping("/upcoming")
-    public ResponseEntity<List<Appointment>> getUpcomingAppointments(@AuthenticationPrincipal User user) {
-        List<Appointment> appointments;
+    public ResponseEntity<List<AppointmentView>> getUpcomingAppointments(@AuthenticationPrincipal User user) {
+        List<AppointmentView> appointments;
         LocalDate today = LocalDate.now();
 
         if (user.getRole().name().equals("DOCTOR")) {
-            appointments = appointmentRepository.findUpcomingByDoctor(user, today);
+            appointments = appointmentRepository.findUpcomingViewsByDoctor(user.getId(), today);
         } else {
-            appointments = appointmentRepository.findUpcomingByPatient(user, today);
+            appointments = appointmentRepository.findUpcomingViewsByPatient(user.getId(), today);
         }
 
         return ResponseEntity.ok(appointments);
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<Appointment> updateStatus(
+    public ResponseEntity<AppointmentView> updateStatus(
             @PathVariable Long id,
             @RequestParam AppointmentStatus status,
             @AuthenticationPrincipal User user) {
@@ -97,8 +118,13 @@ public class AppointmentController {
             return ResponseEntity.status(403).build();
         }
 
-        appointment.setStatus(status);
-        return ResponseEntity.ok(appointmentRepository.save(appointment));
+        try {
+            // Reactivating a cancelled appointment fails if its slot was taken meanwhile
+            bookingService.changeStatus(appointment, status);
+        } catch (BookingService.SlotTakenException | OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.of(appointmentRepository.findViewById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -115,8 +141,11 @@ public class AppointmentController {
             return ResponseEntity.status(403).build();
         }
 
-        appointment.setStatus(AppointmentStatus.CANCELLED);
-        appointmentRepository.save(appointment);
+        try {
+            bookingService.changeStatus(appointment, AppointmentStatus.CANCELLED);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        }
 
         return ResponseEntity.ok().build();
     }
@@ -126,29 +155,46 @@ public class AppointmentController {
             @RequestParam Long doctorId,
             @RequestParam String date) {
 
-        User doctor = userRepository.findById(doctorId)
-                .orElseThrow(() -> new RuntimeException("Doctor not found"));
-        LocalDate localDate = LocalDate.parse(date);
+        return ResponseEntity.ok(slotIndex.bookedSlots(doctorId, LocalDate.parse(date)));
+    }
+
+    // Booked slots for several days at once, keyed by date
+    @GetMapping("/availability")
+    public ResponseEntity<Map<LocalDate, List<String>>> getAvailability(
+            @RequestParam Long doctorId,
+            @RequestParam String from,
+            @RequestParam(defaultValue = "7") int days) {
 
-        List<String> bookedSlots = appointmentRepository.findByDoctorAndDate(doctor, localDate)
-                .stream()
-                .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
-                .map(Appointment::getTimeSlot)
-                .collect(java.util.stream.Collectors.toList());
+        int dayCount = Math.max(1, Math.min(days, MAX_AVAILABILITY_DAYS));
+        return ResponseEntity.ok(slotIndex.bookedSlots(doctorId, LocalDate.parse(from), dayCount));
+    }
 
-        return ResponseEntity.ok(bookedSlots);
+    // Earliest free slot of the given length between two times of the day
+    @GetMapping("/next-free-slot")
+    public ResponseEntity<String> getNextFreeSlot(
+            @RequestParam Long doctorId,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "9:00 AM") String after,
+            @RequestParam(defaultValue = "5:00 PM") String before,
+            @RequestParam(defaultValue = "30") int minutes) {
+
+        int from = TimeSlots.parse(after)[0];
+        int close = TimeSlots.parse(before)[0];
+        return appointmentRepository.findNextFreeStart(doctorId, LocalDate.parse(date), from, minutes, close)
+                .map(start -> ResponseEntity.ok(TimeSlots.label(start, start + minutes)))
+                .orElse(ResponseEntity.noContent().build());
     }
 
     // Get past appointments
     @GetMapping("/past")
-    public ResponseEntity<List<Appointment>> getPastAppointments(@AuthenticationPrincipal User user) {
-        List<Appointment> appointments;
+    public ResponseEntity<List<AppointmentView>> getPastAppointments(@AuthenticationPrincipal User user) {
+        List<AppointmentView> appointments;
         LocalDate today = LocalDate.now();
 
         if (user.getRole().name().equals("DOCTOR")) {
-            appointments = appointmentRepository.findPastByDoctor(user, today);
+            appointments = appointmentRepository.findPastViewsByDoctor(user.getId(), today);
         } else {
-            appointments = appointmentRepository.findPastByPatient(user, today);
+            appointments = appointmentRepository.findPastViewsByPatient(user.getId(), today);
         }
 
         return ResponseEntity.ok(appointments);
@@ -156,13 +202,13 @@ public class AppointmentController {
 
     // Get cancelled appointments
     @GetMapping("/cancelled")
-    public ResponseEntity<List<Appointment>> getCancelledAppointments(@AuthenticationPrincipal User user) {
-        List<Appointment> appointments;
+    public ResponseEntity<List<AppointmentView>> getCancelledAppointments(@AuthenticationPrincipal User user) {
+        List<AppointmentView> appointments;
 
         if (user.getRole().name().equals("DOCTOR")) {
-            appointments = appointmentRepository.findCancelledByDoctor(user);
+            appointments = appointmentRepository.findCancelledViewsByDoctor(user.getId());
         } else {
-            appointments = appointmentRepository.findCancelledByPatient(user);
+            appointments = appointmentRepository.findCancelledViewsByPatient(user.getId());
         }
 
         return ResponseEntity.ok(appointments);
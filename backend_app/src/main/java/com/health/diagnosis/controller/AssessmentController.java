@@ -1,15 +1,26 @@
 package com.health.diagnosis.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.health.diagnosis.dto.AssessmentBatchResult;
 import com.health.diagnosis.dto.AssessmentSubmission;
+import com.health.diagnosis.dto.DiagnosisEntry;
+import com.health.diagnosis.dto.DiagnosisHistoryPage;
+import com.health.diagnosis.dto.DiagnosisTrendPoint;
 import com.health.diagnosis.entity.Diagnosis;
 import com.health.diagnosis.entity.Question;
-import com.health.diagnosis.repository.QuestionRepository;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.service.AssessmentBatchService;
 import com.health.diagnosis.service.AssessmentService;
+import com.health.diagnosis.service.QuestionnaireStore;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -17,13 +28,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AssessmentController {
 
-    private final QuestionRepository questionRepository;
+    private final QuestionnaireStore questionnaireStore;
     private final AssessmentService assessmentService;
+    private final AssessmentBatchService assessmentBatchService;
 
     @GetMapping("/questions")
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<List<Question>> getAllQuestions() {
-        return ResponseEntity.ok(questionRepository.findAll());
+        QuestionnaireStore.Snapshot questionnaire = questionnaireStore.current();
+        return ResponseEntity.ok()
+                .eTag(questionnaire.contentHash())
+                .body(questionnaire.questions());
     }
 
     @PostMapping("/submit")
@@ -32,10 +47,51 @@ public class AssessmentController {
         return ResponseEntity.ok(assessmentService.submitAssessment(submission));
     }
 
+    // Bulk upload from clinic kiosks: a JSON array of submissions, each with patientId.
+    // A broken upload is rolled back as a whole, so it can be resent unchanged.
+    // Over app.assessment.batch.max-items the upload is refused with 413 and nothing is stored.
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    public ResponseEntity<AssessmentBatchResult> submitBatch(HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(assessmentBatchService.ingest(request.getInputStream()));
+        } catch (AssessmentBatchService.TooLargeException e) {
+            return ResponseEntity.status(413).body(AssessmentBatchResult.builder()
+                    .results(List.of())
+                    .error("Nothing stored: " + e.getMessage())
+                    .build());
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(AssessmentBatchResult.builder()
+                    .results(List.of())
+                    .error("Nothing stored: " + e.getMessage())
+                    .build());
+        }
+    }
+
     @GetMapping("/history")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<List<Diagnosis>> getHistory(
-            @org.springframework.security.core.annotation.AuthenticationPrincipal com.health.diagnosis.entity.User user) {
+    public ResponseEntity<List<DiagnosisEntry>> getHistory(
+            @AuthenticationPrincipal User user) {
         return ResponseEntity.ok(assessmentService.getHistory(user));
     }
+
+    // Keyset-paginated history, newest first: /api/assessment/history/page?cursor=...&size=20
+    @GetMapping("/history/page")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<DiagnosisHistoryPage> getHistoryPage(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(assessmentService.getHistoryPage(user, cursor, size));
+    }
+
+    // Score trend with a moving average, oldest first
+    @GetMapping("/trend")
+    @PreAuthorize("hasRole('PATIENT')")
+    public ResponseEntity<List<DiagnosisTrendPoint>> getTrend(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "3") int window,
+            @RequestParam(defaultValue = "20") int points) {
+        return ResponseEntity.ok(assessmentService.getTrend(user, window, points));
+    }
 }
@@ -1,8 +1,13 @@
 package com.health.diagnosis.controller;
 
+import com.health.diagnosis.dto.ChatHistoryPage;
 import com.health.diagnosis.entity.ChatMessage;
 import com.health.diagnosis.repository.ChatMessageRepository;
+import com.health.diagnosis.service.ChatPersistencePipeline;
+import com.health.diagnosis.service.UnreadCounterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -11,6 +16,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,14 +27,18 @@ public class ChatController {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final ChatMessageRepository chatMessageRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatPersistencePipeline chatPersistencePipeline;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
 
     // WebSocket Endpoint: /app/chat
     @MessageMapping("/chat")
     public void processMessage(@Payload ChatMessage chatMessage) {
         chatMessage.setTimestamp(LocalDateTime.now());
 
-        // Save to DB
-        ChatMessage saved = chatMessageRepository.save(chatMessage);
+        // Journal and queue for batched insert; the id is final from here on
+        ChatMessage saved = chatPersistencePipeline.submit(chatMessage);
+        unreadCounterService.chatMessageSent(saved.getSenderId(), saved.getRecipientId());
 
         // Push to specific recipient topic (e.g., /topic/messages/5)
         messagingTemplate.convertAndSend(
@@ -41,17 +51,59 @@ public class ChatController {
     public ResponseEntity<List<ChatMessage>> getChatHistory(
             @PathVariable Long userId1,
             @PathVariable Long userId2) {
+        chatPersistencePipeline.awaitPersisted(userId1, userId2);
         return ResponseEntity.ok(
                 chatMessageRepository.findBySenderIdAndRecipientIdOrSenderIdAndRecipientIdOrderByTimestampAsc(
                         userId1, userId2, userId2, userId1));
     }
 
+    // Keyset-paginated history, newest first: /api/chat/history/{u1}/{u2}/page?cursor=...&size=50
+    @GetMapping("/api/chat/history/{userId1}/{userId2}/page")
+    public ResponseEntity<ChatHistoryPage> getChatHistoryPage(
+            @PathVariable Long userId1,
+            @PathVariable Long userId2,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // Fetch one extra row to know whether an older page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<ChatMessage> rows;
+        if (cursor == null || cursor.isBlank()) {
+            // Messages still in the write-behind queue belong on the newest page
+            chatPersistencePipeline.awaitPersisted(userId1, userId2);
+            rows = chatMessageRepository.findLatestPage(userId1, userId2, limit);
+        } else {
+            int separator = cursor.lastIndexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime timestamp = LocalDateTime.parse(cursor.substring(0, separator));
+            Long id = Long.valueOf(cursor.substring(separator + 1));
+            rows = chatMessageRepository.findPageBefore(userId1, userId2, timestamp, id, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessage> messages = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ChatMessage oldest = messages.get(messages.size() - 1);
+            nextCursor = oldest.getTimestamp() + "_" + oldest.getId();
+        }
+
+        return ResponseEntity.ok(ChatHistoryPage.builder()
+                .messages(messages)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build());
+    }
+
     // Get unread message count from a specific user
     @GetMapping("/api/chat/unread-count/{recipientId}/{senderId}")
     public ResponseEntity<Long> getUnreadCount(
             @PathVariable Long recipientId,
             @PathVariable Long senderId) {
-        long count = chatMessageRepository.countBySenderIdAndRecipientIdAndIsReadFalse(senderId, recipientId);
+        long count = unreadCounterService.getChatUnread(senderId, recipientId);
         return ResponseEntity.ok(count);
     }
 
@@ -60,10 +112,10 @@ public class ChatController {
     public ResponseEntity<Void> markMessagesAsRead(
             @PathVariable Long recipientId,
             @PathVariable Long senderId) {
-        List<ChatMessage> messages = chatMessageRepository
-                .findBySenderIdAndRecipientIdAndIsReadFalse(senderId, recipientId);
-        messages.forEach(msg -> msg.setIsRead(true));
-        chatMessageRepository.saveAll(messages);
+        // Otherwise messages still queued would be inserted afterwards as unread
+        chatPersistencePipeline.awaitPersisted(senderId, recipientId);
+        chatMessageRepository.markReadBySenderAndRecipient(senderId, recipientId);
+        unreadCounterService.chatMarkedRead(senderId, recipientId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
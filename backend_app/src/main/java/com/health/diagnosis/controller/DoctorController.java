@@ -1,5 +1,8 @@
 package com.health.diagnosis.controller;
 
+import com.health.diagnosis.dto.DoctorRecommendation;
+import com.health.diagnosis.dto.DoctorSearchPage;
+import com.health.diagnosis.dto.PatientRosterPage;
 import com.health.diagnosis.entity.DoctorProfile;
 import com.health.diagnosis.service.DoctorService;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 import com.health.diagnosis.entity.User;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,15 +28,44 @@ public class DoctorController {
         return ResponseEntity.ok(doctorService.getAllDoctors());
     }
 
+    // Filtered, paginated search; page is zero-based
+    @GetMapping("/search")
+    public ResponseEntity<DoctorSearchPage> searchDoctors(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) Double minFee,
+            @RequestParam(required = false) Double maxFee,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "false") boolean verifiedOnly,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(doctorService.searchDoctors(specialization, language, minFee, maxFee, minRating,
+                verifiedOnly, page, size));
+    }
+
+    @GetMapping("/search/facets")
+    public ResponseEntity<Map<String, List<String>>> getSearchFacets() {
+        return ResponseEntity.ok(doctorService.getSearchFacets());
+    }
+
     @GetMapping("/recommend")
-    public ResponseEntity<List<DoctorProfile>> recommendDoctors(
-            @RequestParam String riskLevel) {
-        return ResponseEntity.ok(doctorService.recommendDoctors(riskLevel));
+    public ResponseEntity<List<DoctorRecommendation>> recommendDoctors(
+            @RequestParam String riskLevel,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(doctorService.recommendDoctors(riskLevel, Math.max(1, Math.min(limit, 50))));
     }
 
     @GetMapping("/my-patients")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<User>> getMyPatients(@AuthenticationPrincipal User doctor) {
-        return ResponseEntity.ok(doctorService.getMyPatients(doctor));
+    public ResponseEntity<PatientRosterPage> getMyPatients(@AuthenticationPrincipal User doctor,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > 200) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(doctorService.getMyPatients(doctor, page, size));
     }
 }
@@ -1,74 +1,220 @@
 package com.health.diagnosis.controller;
 
-import com.health.diagnosis.entity.ChatMessage;
-import com.health.diagnosis.repository.ChatMessageRepository;
+import com.health.diagnosis.dto.AttachmentUpload;
+import com.health.diagnosis.entity.ChatAttachment;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.service.AttachmentStorage;
+import com.health.diagnosis.service.AttachmentStore;
+import com.health.diagnosis.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
 public class FileUploadController {
 
-    private final ChatMessageRepository chatMessageRepository;
-    private static final String UPLOAD_DIR = "uploads/chat/";
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024; // Same threshold as Tomcat's DefaultServlet
 
-    @PostMapping("/upload")
-    public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file,
-            @RequestParam("userId") Long userId) {
+    private final AttachmentStore attachmentStore;
+    private final AttachmentStorage storage;
+    private final ThumbnailService thumbnailService;
+
+    @Value("${app.thumbnails.request-wait-ms:2000}")
+    private long thumbnailWaitMs;
+
+    // Raw request body straight to staging (no multipart parsing or buffering).
+    // Name goes in X-File-Name (URL-encoded), type in Content-Type.
+    @PostMapping("/attachments")
+    public ResponseEntity<AttachmentUpload> uploadAttachment(@AuthenticationPrincipal User user,
+            HttpServletRequest request,
+            @RequestHeader(value = "X-File-Name", defaultValue = "file") String encodedName) throws IOException {
+        if (request.getContentLengthLong() > attachmentStore.maxBytes()) {
+            return ResponseEntity.status(413).build();
+        }
+        String filename = URLDecoder.decode(encodedName, StandardCharsets.UTF_8);
         try {
-            // Validate file size
-            if (file.getSize() > MAX_FILE_SIZE) {
-                throw new RuntimeException("File size exceeds 10MB limit");
-            }
+            return ResponseEntity.ok(store(user, request.getInputStream(), request.getContentType(), filename));
+        } catch (AttachmentStore.TooLargeException e) {
+            return ResponseEntity.status(413).build();
+        } catch (AttachmentStore.QuotaExceededException e) {
+            return ResponseEntity.status(507).build();
+        }
+    }
 
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(UPLOAD_DIR + userId);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+    // Multipart form upload, kept for older clients; stored the same way
+    @PostMapping("/upload")
+    public ResponseEntity<AttachmentUpload> uploadFile(@AuthenticationPrincipal User user,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        if (file.getSize() > attachmentStore.maxBytes()) {
+            return ResponseEntity.status(413).build();
+        }
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(store(user, in, file.getContentType(), file.getOriginalFilename()));
+        } catch (AttachmentStore.TooLargeException e) {
+            return ResponseEntity.status(413).build();
+        } catch (AttachmentStore.QuotaExceededException e) {
+            return ResponseEntity.status(507).build();
+        }
+    }
 
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String filename = UUID.randomUUID().toString() + extension;
-            Path filePath = uploadPath.resolve(filename);
+    private AttachmentUpload store(User user, InputStream in, String contentType, String filename) throws IOException {
+        String type = contentType == null || contentType.isBlank() ? "application/octet-stream" : contentType;
+        String name = filename == null || filename.isBlank() ? "file" : Path.of(filename).getFileName().toString();
+        AttachmentStore.Stored stored = attachmentStore.store(in, type, user != null ? user.getId() : null);
 
-            // Save file
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        String base = "/api/chat/files/" + stored.sha256();
+        String sig = "?sig=" + attachmentStore.sign(stored.sha256());
+        String thumbnailUrl = null;
+        if (ThumbnailService.isImage(type)) {
+            thumbnailService.schedule(stored.sha256());
+            thumbnailUrl = base + "/thumbnail" + sig;
+        }
+        return AttachmentUpload.builder()
+                .url(base + sig + "&name=" + URLEncoder.encode(name, StandardCharsets.UTF_8))
+                .thumbnailUrl(thumbnailUrl)
+                .type(type.startsWith("image/") ? "IMAGE" : "DOCUMENT")
+                .filename(name)
+                .sha256(stored.sha256())
+                .size(stored.size())
+                .deduplicated(stored.deduplicated())
+                .build();
+    }
 
-            // Determine file type
-            String fileType = "DOCUMENT";
-            String contentType = file.getContentType();
-            if (contentType != null && contentType.startsWith("image/")) {
-                fileType = "IMAGE";
-            }
+    // Signed link instead of a bearer token so the URL works in <img> and <a download>.
+    // Supports If-None-Match (the ETag is the content hash) and single byte ranges.
+    @GetMapping("/files/{sha256}")
+    public void download(@PathVariable String sha256, @RequestParam String sig,
+            @RequestParam(required = false) String name,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ChatAttachment> attachment = attachmentStore.verify(sha256, sig)
+                ? attachmentStore.find(sha256)
+                : Optional.empty();
+        if (attachment.isEmpty()) {
+            response.setStatus(404);
+            return;
+        }
+        send(sha256, "\"" + sha256 + "\"", attachment.get().getContentType(),
+                name != null && !name.isBlank() ? name : sha256, request, response);
+    }
+
+    // Small JPEG preview of an image attachment. If it is still being generated the
+    // request waits briefly, then falls back to the original so the bubble always renders.
+    @GetMapping("/files/{sha256}/thumbnail")
+    public void thumbnail(@PathVariable String sha256, @RequestParam String sig,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ChatAttachment> attachment = attachmentStore.verify(sha256, sig)
+                ? attachmentStore.find(sha256)
+                : Optional.empty();
+        String contentType = attachment.map(ChatAttachment::getContentType).orElse(null);
+        if (!ThumbnailService.isImage(contentType)) {
+            response.setStatus(404);
+            return;
+        }
 
-            // Build file URL
-            String fileUrl = "/" + UPLOAD_DIR + userId + "/" + filename;
+        Optional<String> thumbnail = thumbnailService.thumbnail(sha256, thumbnailWaitMs);
+        if (thumbnail.isPresent()) {
+            send(thumbnail.get(), "\"" + sha256 + "-thumb\"", "image/jpeg", sha256 + ".jpg", request, response);
+        } else {
+            send(sha256, "\"" + sha256 + "\"", contentType, sha256, request, response);
+        }
+    }
 
-            Map<String, String> response = new HashMap<>();
-            response.put("url", fileUrl);
-            response.put("type", fileType);
-            response.put("filename", originalFilename);
+    private void send(String key, String etag, String contentType, String filename,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Content never changes under a given hash
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        // Uploaded bytes are untrusted: never let them run script on the API origin, even if opened directly
+        response.setHeader("Content-Security-Policy", "sandbox");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(304);
+            return;
+        }
 
-            return ResponseEntity.ok(response);
+        long length = storage.size(key);
+        if (length < 0) {
+            response.setStatus(404);
+            return;
+        }
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        boolean partial = rangeHeader != null && (ifRange == null || ifRange.equals(etag));
+        if (partial) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(416);
+                    return;
+                }
+                response.setStatus(206);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            } else {
+                partial = false; // Multi-range or malformed: send the whole file
+            }
+        }
+
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setContentLengthLong(count);
+        // Only raster images we can decode render inline; SVG and anything else is a download
+        ContentDisposition.Builder disposition = ThumbnailService.isImage(contentType)
+                ? ContentDisposition.inline()
+                : ContentDisposition.attachment();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(filename)) {
+            disposition.filename(filename);
+        } else {
+            disposition.filename(filename, StandardCharsets.UTF_8);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+        if (count == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to upload file: " + e.getMessage());
+        // Large local files go out with sendfile(2) once the handler returns; small ones come
+        // from the storage's mapped-buffer cache, remote ones are streamed through
+        Optional<Path> file = storage.localPath(key);
+        if (file.isPresent() && count >= SENDFILE_MIN_BYTES
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.get().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
         }
+        storage.transferTo(key, start, count, Channels.newChannel(response.getOutputStream()));
     }
 }
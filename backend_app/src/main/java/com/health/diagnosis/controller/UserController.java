@@ -1,18 +1,20 @@
 package com.health.diagnosis.controller;
 
+import com.health.diagnosis.config.PrincipalCache;
 import com.health.diagnosis.dto.UserProfileDto;
+import com.health.diagnosis.dto.UserSummaryPage;
 import com.health.diagnosis.entity.DoctorProfile;
 import com.health.diagnosis.entity.User;
 import com.health.diagnosis.enums.Role;
 import com.health.diagnosis.repository.DoctorRepository;
 import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.service.DirectoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -22,21 +24,37 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
+    private final PrincipalCache principalCache;
+    private final DirectoryService directoryService;
 
+    // Contact pickers, alphabetical keyset pages
     @GetMapping("/patients")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<User>> getAllPatients() {
-        return ResponseEntity.ok(userRepository.findByRole(Role.PATIENT));
+    public ResponseEntity<UserSummaryPage> getPatients(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(directoryService.listUsers(Role.PATIENT, search, "name", cursor, size));
     }
 
     @GetMapping("/doctors")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<List<User>> getAllDoctors() {
-        return ResponseEntity.ok(userRepository.findByRole(Role.DOCTOR));
+    public ResponseEntity<UserSummaryPage> getDoctors(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(directoryService.listUsers(Role.DOCTOR, search, "name", cursor, size));
     }
 
+    // The principal only carries identity fields (see PrincipalCache), so the profile is read fresh
     @GetMapping("/me")
-    public ResponseEntity<UserProfileDto> getCurrentUser(@AuthenticationPrincipal User user) {
+    public ResponseEntity<UserProfileDto> getCurrentUser(@AuthenticationPrincipal User principal) {
+        return userRepository.findById(principal.getId())
+                .map(user -> ResponseEntity.ok(toProfile(user)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private UserProfileDto toProfile(User user) {
         UserProfileDto dto = UserProfileDto.builder()
                 .id(user.getId())
                 .fullName(user.getFullName())
@@ -68,12 +86,17 @@ public class UserController {
             }
         }
 
-        return ResponseEntity.ok(dto);
+        return dto;
     }
 
     @PutMapping("/me")
-    public ResponseEntity<UserProfileDto> updateProfile(@AuthenticationPrincipal User currentUser,
+    public ResponseEntity<UserProfileDto> updateProfile(@AuthenticationPrincipal User principal,
             @RequestBody UserProfileDto updatedData) {
+        Optional<User> loaded = userRepository.findById(principal.getId());
+        if (loaded.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        User currentUser = loaded.get();
 
         // Update User Entity Fields
         currentUser.setFullName(updatedData.getFullName());
@@ -104,8 +127,9 @@ public class UserController {
         }
 
         userRepository.save(currentUser);
+        principalCache.evictUser(currentUser.getId());
 
         // Return updated DTO (reuse get logic or simple mapping)
-        return getCurrentUser(currentUser);
+        return ResponseEntity.ok(toProfile(currentUser));
     }
 }
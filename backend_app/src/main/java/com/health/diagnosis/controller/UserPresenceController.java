@@ -1,14 +1,13 @@
 package com.health.diagnosis.controller;
 
 import com.health.diagnosis.entity.User;
-import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.service.PresenceService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,28 +15,22 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserPresenceController {
 
-    private final UserRepository userRepository;
+    private final PresenceService presenceService;
 
     @PostMapping("/heartbeat")
     public ResponseEntity<Void> updateHeartbeat(@AuthenticationPrincipal User user) {
-        user.setLastSeen(LocalDateTime.now());
-        userRepository.save(user);
+        presenceService.heartbeat(user.getId());
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/{userId}/status")
     public ResponseEntity<Map<String, Object>> getUserStatus(@PathVariable Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        boolean isOnline = false;
-        if (user.getLastSeen() != null) {
-            long minutesSinceLastSeen = ChronoUnit.MINUTES.between(user.getLastSeen(), LocalDateTime.now());
-            isOnline = minutesSinceLastSeen < 2; // Online if active within last 2 minutes
-        }
+        return ResponseEntity.ok(presenceService.getStatus(userId));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "isOnline", isOnline,
-                "lastSeen", user.getLastSeen() != null ? user.getLastSeen().toString() : "Never"));
+    // Bulk lookup, e.g. /api/users/status?ids=3,5,8
+    @GetMapping("/status")
+    public ResponseEntity<Map<Long, Map<String, Object>>> getUserStatuses(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(presenceService.getStatuses(ids));
     }
 }
@@ -0,0 +1,60 @@
+package com.health.diagnosis.dto;
+
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.enums.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Slim appointment returned by list endpoints instead of the entity, so full
+// User rows (password hash, medical history) are never loaded or serialized.
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AppointmentView {
+    private Long id;
+    private Party patient;
+    private Party doctor;
+    private LocalDate appointmentDate;
+    private String timeSlot;
+    private AppointmentStatus status;
+    private String notes;
+    private LocalDateTime createdAt;
+
+    // Used by the JPQL constructor expressions in AppointmentRepository
+    public AppointmentView(Long id, Long patientId, String patientName, Long doctorId, String doctorName,
+            String doctorSpecialization, LocalDate appointmentDate, String timeSlot, AppointmentStatus status,
+            String notes, LocalDateTime createdAt) {
+        this(id, new Party(patientId, patientName, null), new Party(doctorId, doctorName, doctorSpecialization),
+                appointmentDate, timeSlot, status, notes, createdAt);
+    }
+
+    // Only for entities whose patient and doctor are already loaded
+    public static AppointmentView from(Appointment appointment) {
+        return AppointmentView.builder()
+                .id(appointment.getId())
+                .patient(new Party(appointment.getPatient().getId(), appointment.getPatient().getFullName(), null))
+                .doctor(new Party(appointment.getDoctor().getId(), appointment.getDoctor().getFullName(),
+                        appointment.getDoctor().getSpecialization()))
+                .appointmentDate(appointment.getAppointmentDate())
+                .timeSlot(appointment.getTimeSlot())
+                .status(appointment.getStatus())
+                .notes(appointment.getNotes())
+                .createdAt(appointment.getCreatedAt())
+                .build();
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Party {
+        private Long id;
+        private String fullName;
+        private String specialization;
+    }
+}
@@ -0,0 +1,19 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AppointmentViewPage {
+    private List<AppointmentView> appointments;
+    private String nextCursor; // Pass back as ?cursor= for the next page, null when done
+    private boolean hasMore;
+    private Long total; // Matching rows; only computed for the first page
+}
@@ -0,0 +1,32 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssessmentBatchResult {
+    private int accepted;
+    private int rejected;
+    private long questionnaireVersion;
+    private List<Item> results; // in upload order
+    private String error; // set when the upload was rejected as a whole and nothing was stored
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private int index;
+        private Long patientId;
+        private Integer totalScore;
+        private String riskLevel;
+        private String error; // null when stored
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Data
@@ -15,4 +16,8 @@ public class AssessmentSubmission {
     // Map of QuestionID -> Score (0-3 usually)
     // 0: Not at all, 1: Several days, 2: More than half, 3: Nearly every day
     private Map<Long, Integer> answers;
+
+    // Batch uploads only: whose questionnaire this is and when it was filled in
+    private Long patientId;
+    private LocalDateTime completedAt;
 }
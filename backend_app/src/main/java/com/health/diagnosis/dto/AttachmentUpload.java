@@ -0,0 +1,20 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttachmentUpload {
+    private String url; // Signed download link, relative to the server root
+    private String thumbnailUrl; // Preview link for images, null otherwise
+    private String type; // IMAGE or DOCUMENT
+    private String filename;
+    private String sha256;
+    private long size;
+    private boolean deduplicated; // Same bytes were already stored
+}
@@ -0,0 +1,18 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BrokerDestinationStats {
+    private String destination; // Numeric segments collapsed, e.g. /topic/messages/{id}
+    private long published; // Sent to the broker from this node
+    private long delivered; // Pushed to WebSocket clients connected to this node
+    private double publishedPerSecond; // Over the last sample interval
+    private double deliveredPerSecond;
+}
@@ -0,0 +1,20 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BrokerStats {
+    private String mode; // simple or relay
+    private boolean brokerAvailable;
+    private long slowConsumersEvicted; // Sessions closed for exceeding send buffer/time limits
+    private long sampleIntervalMs;
+    private List<BrokerDestinationStats> destinations; // Busiest first
+}
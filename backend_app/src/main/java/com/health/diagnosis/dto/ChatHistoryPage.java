@@ -0,0 +1,19 @@
+package com.health.diagnosis.dto;
+
+import com.health.diagnosis.entity.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatHistoryPage {
+    private List<ChatMessage> messages; // Newest first
+    private String nextCursor; // Pass back as ?cursor= to load older messages, null when done
+    private boolean hasMore;
+}
@@ -0,0 +1,20 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A diagnosis without its User, for history lists
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiagnosisEntry {
+    private Long id;
+    private int totalScore;
+    private String riskLevel;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiagnosisHistoryPage {
+    private List<DiagnosisEntry> entries; // Newest first
+    private String nextCursor; // Pass back as ?cursor= to load older entries, null when done
+    private boolean hasMore;
+}
@@ -0,0 +1,18 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiagnosisTrendPoint {
+    private LocalDateTime createdAt;
+    private int totalScore;
+    private double movingAverage; // mean of this score and the previous (window - 1)
+}
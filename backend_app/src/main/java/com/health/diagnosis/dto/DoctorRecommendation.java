@@ -0,0 +1,22 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DoctorRecommendation {
+    private Long doctorId; // User id, as used for booking
+    private String fullName;
+    private String specialization;
+    private Double rating;
+    private Integer yearsOfExperience;
+    private Double consultationFee;
+    private long upcomingAppointments;
+    private int freeSlotsThisWeek;
+    private double score; // Higher ranks first
+}
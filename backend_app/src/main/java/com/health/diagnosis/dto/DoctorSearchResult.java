@@ -0,0 +1,26 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DoctorSearchResult {
+    private Long doctorId; // User id, as used for booking and chat
+    private Long profileId;
+    private String fullName;
+    private String specialization;
+    private boolean verified;
+    private Double rating;
+    private Integer yearsOfExperience;
+    private Double consultationFee;
+    private List<String> languages;
+    private String clinicAddress;
+    private String availableHours;
+}
@@ -0,0 +1,34 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One patient on a doctor's roster: contact details, how often they have
+// booked with this doctor, and their latest assessment result
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientRosterEntry {
+    private Long patientId;
+    private String fullName;
+    private String email;
+    private String phone;
+    private Integer age;
+    private String gender;
+    private long appointmentCount;
+    private LocalDate lastAppointmentDate;
+    private String latestRiskLevel;
+    private LocalDateTime latestAssessmentAt;
+
+    // Used by the JPQL constructor expression in UserRepository; roster stats are filled in afterwards
+    public PatientRosterEntry(Long patientId, String fullName, String email, String phone, Integer age,
+            String gender, String latestRiskLevel, LocalDateTime latestAssessmentAt) {
+        this(patientId, fullName, email, phone, age, gender, 0, null, latestRiskLevel, latestAssessmentAt);
+    }
+}
@@ -0,0 +1,20 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientRosterPage {
+    private List<PatientRosterEntry> patients; // Most recent appointment first
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
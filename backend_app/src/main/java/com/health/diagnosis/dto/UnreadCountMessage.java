@@ -0,0 +1,15 @@
+package com.health.diagnosis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pushed on /topic/notifications/{userId} whenever the unread badge changes
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnreadCountMessage {
+    private long unreadCount;
+}
@@ -0,0 +1,24 @@
+package com.health.diagnosis.dto;
+
+import com.health.diagnosis.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// User row for list endpoints: no password hash, medical history or address
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String fullName;
+    private String email;
+    private Role role;
+    private String specialization;
+    private boolean verified;
+    private Integer age;
+    private String gender;
+    private String phone;
+}
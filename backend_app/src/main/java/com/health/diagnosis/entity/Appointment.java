@@ -15,17 +15,27 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointment_doctor_day_slot", columnList = "doctor_id, appointment_date, slot_start"),
+        @Index(name = "idx_appointment_doctor_patient", columnList = "doctor_id, patient_id, appointment_date"),
+        @Index(name = "idx_appointment_date", columnList = "appointment_date")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = Appointment.SLOT_CONSTRAINT,
+                columnNames = { "doctor_id", "appointment_date", "active_slot" })
+})
 public class Appointment {
+
+    public static final String SLOT_CONSTRAINT = "uk_appointment_doctor_day_active_slot";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private User patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private User doctor;
 
@@ -35,6 +45,21 @@ public class Appointment {
     @Column(nullable = false)
     private String timeSlot; // e.g., "10:00 AM - 10:30 AM"
 
+    // Minutes since midnight, derived from timeSlot on save
+    @Column(name = "slot_start")
+    private Integer slotStart;
+
+    @Column(name = "slot_end")
+    private Integer slotEnd;
+
+    // slotStart while the appointment holds its slot, NULL once cancelled,
+    // so the unique constraint only applies to live bookings
+    @Column(name = "active_slot")
+    private Integer activeSlot;
+
+    @Version
+    private Long version;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AppointmentStatus status;
@@ -51,5 +76,24 @@ public class Appointment {
         if (status == null) {
             status = AppointmentStatus.PENDING;
         }
+        deriveSlot();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        deriveSlot();
+    }
+
+    private void deriveSlot() {
+        try {
+            int[] range = TimeSlots.parse(timeSlot);
+            slotStart = range[0];
+            slotEnd = range[1];
+        } catch (IllegalArgumentException e) {
+            // Free-text slot that isn't a time range
+            slotStart = null;
+            slotEnd = null;
+        }
+        activeSlot = status != AppointmentStatus.CANCELLED ? slotStart : null;
     }
 }
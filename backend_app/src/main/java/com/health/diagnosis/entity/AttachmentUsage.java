@@ -0,0 +1,28 @@
+package com.health.diagnosis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Running total of what a user has uploaded, checked against
+// app.attachments.quota-bytes. Every upload counts, including ones that
+// deduplicated against bytes someone else already stored.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "attachment_usage")
+public class AttachmentUsage {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long bytesUsed;
+
+    @Column(nullable = false)
+    private long fileCount;
+}
@@ -0,0 +1,35 @@
+package com.health.diagnosis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One stored file, keyed by the SHA-256 of its bytes. Uploading the same
+// bytes again reuses this row and the file on disk.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "chat_attachments")
+public class ChatAttachment {
+    @Id
+    @Column(length = 64)
+    private String sha256; // Lowercase hex
+
+    @Column(nullable = false)
+    private long sizeBytes;
+
+    private String contentType;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
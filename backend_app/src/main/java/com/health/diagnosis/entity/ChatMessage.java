@@ -13,11 +13,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_sender_recipient_ts", columnList = "sender_id, recipient_id, timestamp")
+})
 public class ChatMessage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    private Long id; // Assigned by ChatIdAllocator before the row is written
 
     private Long senderId; // User ID of sender
     private Long recipientId; // User ID of recipient (Doctor/Patient)
@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "diagnoses")
+@Table(name = "diagnoses", indexes = {
+        @Index(name = "idx_diagnosis_user_created", columnList = "user_id, created_at")
+})
 public class Diagnosis {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,33 @@
+package com.health.diagnosis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per patient with their most recent result, maintained by
+// DiagnosisSummaryService on every submission so dashboards read one row
+// instead of scanning diagnoses.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "diagnosis_summaries")
+public class DiagnosisSummary {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long assessmentCount;
+
+    private Integer latestScore;
+
+    private String latestRiskLevel;
+
+    private LocalDateTime latestAt;
+}
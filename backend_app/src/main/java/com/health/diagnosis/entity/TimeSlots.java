@@ -0,0 +1,54 @@
+package com.health.diagnosis.entity;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Conversions between the slot labels shown in the UI ("10:00 AM - 10:30 AM")
+// and the minute-of-day range stored in appointments.slot_start / slot_end.
+public final class TimeSlots {
+
+    public static final int DEFAULT_LENGTH_MINUTES = 30;
+
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2}):(\\d{2})\\s*([AaPp][Mm])");
+
+    private TimeSlots() {
+    }
+
+    // Returns {start, end} in minutes of the day; a bare start time gets the default length
+    public static int[] parse(String label) {
+        if (label == null) {
+            throw new IllegalArgumentException("Time slot is required");
+        }
+        Matcher matcher = TIME.matcher(label);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Invalid time slot: " + label);
+        }
+        int start = toMinutes(matcher);
+        int end = matcher.find() ? toMinutes(matcher) : start + DEFAULT_LENGTH_MINUTES;
+        if (end <= start) {
+            end = start + DEFAULT_LENGTH_MINUTES;
+        }
+        return new int[] { start, Math.min(end, 24 * 60) };
+    }
+
+    public static String label(int startMinute, int endMinute) {
+        return format(startMinute) + " - " + format(endMinute);
+    }
+
+    public static String format(int minuteOfDay) {
+        int hour = (minuteOfDay / 60) % 24;
+        int minute = minuteOfDay % 60;
+        int displayHour = hour % 12 == 0 ? 12 : hour % 12;
+        return String.format("%d:%02d %s", displayHour, minute, hour < 12 ? "AM" : "PM");
+    }
+
+    private static int toMinutes(Matcher matcher) {
+        int hour = Integer.parseInt(matcher.group(1));
+        int minute = Integer.parseInt(matcher.group(2));
+        if (hour < 1 || hour > 12 || minute > 59) {
+            throw new IllegalArgumentException("Invalid time: " + matcher.group());
+        }
+        boolean pm = matcher.group(3).equalsIgnoreCase("PM");
+        return (hour % 12 + (pm ? 12 : 0)) * 60 + minute;
+    }
+}
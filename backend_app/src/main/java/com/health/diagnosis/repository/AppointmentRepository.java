@@ -1,47 +1,129 @@
 package com.health.diagnosis.repository;
 
+import com.health.diagnosis.dto.AppointmentView;
 import com.health.diagnosis.entity.Appointment;
 import com.health.diagnosis.entity.User;
 import com.health.diagnosis.enums.AppointmentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    List<Appointment> findByPatient(User patient);
+    // Projection shared by the view queries below: one join, no full User rows
+    String VIEW_SELECT = "SELECT new com.health.diagnosis.dto.AppointmentView(a.id, p.id, p.fullName, d.id, " +
+            "d.fullName, d.specialization, a.appointmentDate, a.timeSlot, a.status, a.notes, a.createdAt) " +
+            "FROM Appointment a JOIN a.patient p JOIN a.doctor d ";
 
-    List<Appointment> findByDoctor(User doctor);
+    // Optional filters for the admin list queries
+    String VIEW_FILTER = "WHERE (:status IS NULL OR a.status = :status) " +
+            "AND (:doctorId IS NULL OR d.id = :doctorId) AND (:patientId IS NULL OR p.id = :patientId) " +
+            "AND (:from IS NULL OR a.appointmentDate >= :from) AND (:to IS NULL OR a.appointmentDate <= :to) ";
 
     List<Appointment> findByStatus(AppointmentStatus status);
 
     @Query("SELECT a FROM Appointment a WHERE a.appointmentDate >= :date ORDER BY a.appointmentDate ASC")
     List<Appointment> findUpcomingAppointments(LocalDate date);
 
-    @Query("SELECT a FROM Appointment a WHERE a.patient = :patient AND a.appointmentDate >= :date ORDER BY a.appointmentDate ASC")
-    List<Appointment> findUpcomingByPatient(User patient, LocalDate date);
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.patient = :patient AND a.appointmentDate >= :date")
+    long countUpcomingByPatient(User patient, LocalDate date);
 
-    @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDate >= :date ORDER BY a.appointmentDate ASC")
-    List<Appointment> findUpcomingByDoctor(User doctor, LocalDate date);
+    // Doctor dashboard in one pass: [appointments today, distinct patients, upcoming appointments]
+    @Query("SELECT SUM(CASE WHEN a.appointmentDate = :today THEN 1 ELSE 0 END), " +
+            "COUNT(DISTINCT a.patient.id), " +
+            "SUM(CASE WHEN a.appointmentDate >= :today THEN 1 ELSE 0 END) " +
+            "FROM Appointment a WHERE a.doctor = :doctor")
+    List<Object[]> doctorDashboardCounts(User doctor, LocalDate today);
 
-    @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDate = :date")
-    List<Appointment> findByDoctorAndDate(User doctor, LocalDate date);
+    // VIEW PROJECTIONS
+    @Query(VIEW_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentView> findViewById(Long id);
 
-    // Past appointments
-    @Query("SELECT a FROM Appointment a WHERE a.patient = :patient AND a.appointmentDate < :date ORDER BY a.appointmentDate DESC")
-    List<Appointment> findPastByPatient(User patient, LocalDate date);
+    // KEYSET LISTS on (appointmentDate, id), newest or oldest first
+    @Query(VIEW_SELECT + VIEW_FILTER + "ORDER BY a.appointmentDate DESC, a.id DESC")
+    List<AppointmentView> findFilteredViews(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.appointmentDate < :date ORDER BY a.appointmentDate DESC")
-    List<Appointment> findPastByDoctor(User doctor, LocalDate date);
+    @Query(VIEW_SELECT + VIEW_FILTER + "AND (a.appointmentDate < :date OR (a.appointmentDate = :date AND a.id < :id)) " +
+            "ORDER BY a.appointmentDate DESC, a.id DESC")
+    List<AppointmentView> findFilteredViewsBefore(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, LocalDate date, Long id, Pageable pageable);
 
-    // Cancelled appointments
-    @Query("SELECT a FROM Appointment a WHERE a.patient = :patient AND a.status = 'CANCELLED' ORDER BY a.appointmentDate DESC")
-    List<Appointment> findCancelledByPatient(User patient);
+    @Query(VIEW_SELECT + VIEW_FILTER + "ORDER BY a.appointmentDate ASC, a.id ASC")
+    List<AppointmentView> findFilteredViewsOldestFirst(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.status = 'CANCELLED' ORDER BY a.appointmentDate DESC")
-    List<Appointment> findCancelledByDoctor(User doctor);
+    @Query(VIEW_SELECT + VIEW_FILTER + "AND (a.appointmentDate > :date OR (a.appointmentDate = :date AND a.id > :id)) " +
+            "ORDER BY a.appointmentDate ASC, a.id ASC")
+    List<AppointmentView> findFilteredViewsAfter(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, LocalDate date, Long id, Pageable pageable);
+
+    @Query("SELECT COUNT(a) FROM Appointment a JOIN a.patient p JOIN a.doctor d " + VIEW_FILTER)
+    long countFilteredViews(AppointmentStatus status, Long doctorId, Long patientId, LocalDate from, LocalDate to);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId")
+    List<AppointmentView> findViewsByPatient(Long patientId);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId")
+    List<AppointmentView> findViewsByDoctor(Long doctorId);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId AND a.appointmentDate >= :date ORDER BY a.appointmentDate ASC, a.slotStart ASC")
+    List<AppointmentView> findUpcomingViewsByPatient(Long patientId, LocalDate date);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId AND a.appointmentDate >= :date ORDER BY a.appointmentDate ASC, a.slotStart ASC")
+    List<AppointmentView> findUpcomingViewsByDoctor(Long doctorId, LocalDate date);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId AND a.appointmentDate < :date ORDER BY a.appointmentDate DESC, a.slotStart DESC")
+    List<AppointmentView> findPastViewsByPatient(Long patientId, LocalDate date);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId AND a.appointmentDate < :date ORDER BY a.appointmentDate DESC, a.slotStart DESC")
+    List<AppointmentView> findPastViewsByDoctor(Long doctorId, LocalDate date);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :patientId AND a.status = 'CANCELLED' ORDER BY a.appointmentDate DESC")
+    List<AppointmentView> findCancelledViewsByPatient(Long patientId);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId AND a.status = 'CANCELLED' ORDER BY a.appointmentDate DESC")
+    List<AppointmentView> findCancelledViewsByDoctor(Long doctorId);
+
+    // [patientId, appointment count, last appointment date], one row per patient, most recent first
+    @Query("SELECT a.patient.id, COUNT(a), MAX(a.appointmentDate) FROM Appointment a " +
+            "WHERE a.doctor.id = :doctorId GROUP BY a.patient.id " +
+            "ORDER BY MAX(a.appointmentDate) DESC, a.patient.id ASC")
+    List<Object[]> findPatientRoster(Long doctorId);
+
+    // TIME RANGES (slotStart/slotEnd are minutes of the day, end exclusive)
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date " +
+            "AND a.status <> 'CANCELLED' AND a.slotStart < :end AND a.slotEnd > :start")
+    boolean existsOverlapping(Long doctorId, LocalDate date, int start, int end);
+
+    // Same check, ignoring the appointment being moved (null when booking a new one)
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date " +
+            "AND a.status <> 'CANCELLED' AND a.slotStart < :end AND a.slotEnd > :start " +
+            "AND (:excludeId IS NULL OR a.id <> :excludeId)")
+    boolean existsOverlappingExcept(Long doctorId, LocalDate date, int start, int end, Long excludeId);
+
+    // Earliest end of a booking at or after :from that leaves :length free minutes before :close
+    @Query("SELECT MIN(a.slotEnd) FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date " +
+            "AND a.status <> 'CANCELLED' AND a.slotEnd >= :from AND a.slotEnd + :length <= :close " +
+            "AND NOT EXISTS (SELECT b.id FROM Appointment b WHERE b.doctor.id = :doctorId " +
+            "AND b.appointmentDate = :date AND b.status <> 'CANCELLED' " +
+            "AND b.slotStart < a.slotEnd + :length AND b.slotEnd > a.slotEnd)")
+    Integer findFreeStartAfterBooking(Long doctorId, LocalDate date, int from, int length, int close);
+
+    // Start minute of the first free gap of :length minutes in [from, close), or empty if the day is full
+    default Optional<Integer> findNextFreeStart(Long doctorId, LocalDate date, int from, int length, int close) {
+        if (from + length > close) {
+            return Optional.empty();
+        }
+        if (!existsOverlapping(doctorId, date, from, from + length)) {
+            return Optional.of(from);
+        }
+        return Optional.ofNullable(findFreeStartAfterBooking(doctorId, date, from, length, close));
+    }
 }
@@ -0,0 +1,25 @@
+package com.health.diagnosis.repository;
+
+import com.health.diagnosis.entity.AttachmentUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AttachmentUsageRepository extends JpaRepository<AttachmentUsage, Long> {
+
+    // Conditional increment, so concurrent uploads cannot overshoot the quota; 0 rows means refused
+    @Modifying
+    @Transactional
+    @Query("UPDATE AttachmentUsage u SET u.bytesUsed = u.bytesUsed + :bytes, u.fileCount = u.fileCount + 1 " +
+            "WHERE u.userId = :userId AND u.bytesUsed + :bytes <= :quota")
+    int charge(Long userId, long bytes, long quota);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AttachmentUsage u SET u.bytesUsed = u.bytesUsed - :bytes, u.fileCount = u.fileCount - 1 " +
+            "WHERE u.userId = :userId")
+    int refund(Long userId, long bytes);
+}
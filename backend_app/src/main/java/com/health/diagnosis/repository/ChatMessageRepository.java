@@ -1,9 +1,14 @@
 package com.health.diagnosis.repository;
 
 import com.health.diagnosis.entity.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,10 +17,31 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     List<ChatMessage> findBySenderIdAndRecipientIdOrSenderIdAndRecipientIdOrderByTimestampAsc(
             Long senderId1, Long recipientId1, Long senderId2, Long recipientId2);
 
+    // Newest-first page of the conversation between two users
+    @Query("SELECT m FROM ChatMessage m WHERE (m.senderId = :userId1 AND m.recipientId = :userId2) " +
+            "OR (m.senderId = :userId2 AND m.recipientId = :userId1) " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<ChatMessage> findLatestPage(Long userId1, Long userId2, Pageable pageable);
+
+    // Next page strictly older than the (timestamp, id) cursor
+    @Query("SELECT m FROM ChatMessage m WHERE ((m.senderId = :userId1 AND m.recipientId = :userId2) " +
+            "OR (m.senderId = :userId2 AND m.recipientId = :userId1)) " +
+            "AND (m.timestamp < :timestamp OR (m.timestamp = :timestamp AND m.id < :id)) " +
+            "ORDER BY m.timestamp DESC, m.id DESC")
+    List<ChatMessage> findPageBefore(Long userId1, Long userId2, LocalDateTime timestamp, Long id,
+            Pageable pageable);
+
     // Count unread messages from sender to recipient
     Long countBySenderIdAndRecipientIdAndIsReadFalse(Long senderId, Long recipientId);
 
     // Find unread messages from sender to recipient
     List<ChatMessage> findBySenderIdAndRecipientIdAndIsReadFalse(Long senderId, Long recipientId);
 
+    // Mark every unread message from sender to recipient as read in one statement
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChatMessage m SET m.isRead = true " +
+            "WHERE m.senderId = :senderId AND m.recipientId = :recipientId AND m.isRead = false")
+    int markReadBySenderAndRecipient(Long senderId, Long recipientId);
+
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.health.diagnosis.repository;
 
+import com.health.diagnosis.dto.DiagnosisEntry;
 import com.health.diagnosis.entity.Diagnosis;
 import com.health.diagnosis.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,19 @@ public interface DiagnosisRepository extends JpaRepository<Diagnosis, Long> {
     List<Diagnosis> findByUserOrderByCreatedAtDesc(User user);
 
     List<Diagnosis> findByUser(User user);
+
+    String ENTRY_SELECT = "SELECT new com.health.diagnosis.dto.DiagnosisEntry(d.id, d.totalScore, d.riskLevel, " +
+            "d.createdAt) FROM Diagnosis d ";
+
+    // Newest first, served by idx_diagnosis_user_created
+    @Query(ENTRY_SELECT + "WHERE d.user.id = :userId ORDER BY d.createdAt DESC, d.id DESC")
+    List<DiagnosisEntry> findEntriesByUser(Long userId);
+
+    @Query(ENTRY_SELECT + "WHERE d.user.id = :userId ORDER BY d.createdAt DESC, d.id DESC")
+    List<DiagnosisEntry> findLatestEntries(Long userId, Pageable pageable);
+
+    // Keyset page: entries strictly older than the (createdAt, id) cursor
+    @Query(ENTRY_SELECT + "WHERE d.user.id = :userId AND (d.createdAt < :createdAt " +
+            "OR (d.createdAt = :createdAt AND d.id < :id)) ORDER BY d.createdAt DESC, d.id DESC")
+    List<DiagnosisEntry> findEntriesBefore(Long userId, LocalDateTime createdAt, Long id, Pageable pageable);
 }
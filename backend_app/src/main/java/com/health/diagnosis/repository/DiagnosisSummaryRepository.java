@@ -0,0 +1,9 @@
+package com.health.diagnosis.repository;
+
+import com.health.diagnosis.entity.DiagnosisSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DiagnosisSummaryRepository extends JpaRepository<DiagnosisSummary, Long> {
+}
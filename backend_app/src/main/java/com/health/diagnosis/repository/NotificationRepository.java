@@ -3,9 +3,13 @@ package com.health.diagnosis.repository;
 import com.health.diagnosis.entity.Notification;
 import com.health.diagnosis.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -13,5 +17,25 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     Long countByUserAndIsReadFalse(User user);
 
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
+    long countUnreadByUserId(Long userId);
+
+    // Rows of [userId, unreadCount] for every user with unread notifications
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.isRead = false GROUP BY n.user.id")
+    List<Object[]> countUnreadGroupedByUser();
+
     List<Notification> findTop10ByUserOrderByCreatedAtDesc(User user);
+
+    @Query("SELECT n.user.id FROM Notification n WHERE n.id = :id")
+    Optional<Long> findUserIdById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markReadById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
+    int markAllReadByUser(User user);
 }
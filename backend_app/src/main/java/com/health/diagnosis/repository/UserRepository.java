@@ -1,16 +1,50 @@
 package com.health.diagnosis.repository;
 
+import com.health.diagnosis.dto.PatientRosterEntry;
+import com.health.diagnosis.dto.UserSummary;
 import com.health.diagnosis.entity.User;
 import com.health.diagnosis.enums.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Projection and optional filters shared by the list queries below (search is a lowercase LIKE pattern)
+    String SUMMARY_SELECT = "SELECT new com.health.diagnosis.dto.UserSummary(u.id, u.fullName, u.email, u.role, " +
+            "u.specialization, u.isVerified, u.age, u.gender, u.phone) FROM User u ";
+    String SUMMARY_FILTER = "WHERE (:role IS NULL OR u.role = :role) " +
+            "AND (:search IS NULL OR LOWER(u.fullName) LIKE :search OR LOWER(u.email) LIKE :search) ";
+
     Optional<User> findByEmail(String email);
 
     List<User> findByRole(Role role);
+
+    // KEYSET LISTS: newest first on id, or by name with id as tie-breaker
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + "ORDER BY u.id DESC")
+    List<UserSummary> findSummaries(Role role, String search, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + "AND u.id < :id ORDER BY u.id DESC")
+    List<UserSummary> findSummariesBefore(Role role, String search, Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + "ORDER BY u.fullName ASC, u.id ASC")
+    List<UserSummary> findSummariesByName(Role role, String search, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + SUMMARY_FILTER + "AND (u.fullName > :name OR (u.fullName = :name AND u.id > :id)) " +
+            "ORDER BY u.fullName ASC, u.id ASC")
+    List<UserSummary> findSummariesByNameAfter(Role role, String search, String name, Long id, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u " + SUMMARY_FILTER)
+    long countSummaries(Role role, String search);
+
+    @Query("SELECT new com.health.diagnosis.dto.PatientRosterEntry(u.id, u.fullName, u.email, u.phone, u.age, " +
+            "u.gender, s.latestRiskLevel, s.latestAt) FROM User u " +
+            "LEFT JOIN DiagnosisSummary s ON s.userId = u.id WHERE u.id IN :ids")
+    List<PatientRosterEntry> findRosterEntries(Collection<Long> ids);
 }
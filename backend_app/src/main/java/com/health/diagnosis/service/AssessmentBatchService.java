@@ -0,0 +1,236 @@
+package com.health.diagnosis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.diagnosis.dto.AssessmentBatchResult;
+import com.health.diagnosis.dto.AssessmentSubmission;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Bulk upload of questionnaires collected offline (clinic kiosks). The JSON
+// array is streamed and read in chunks. Each chunk is validated and scored in
+// parallel against one questionnaire snapshot, with patients resolved by a
+// single query. Items fail individually; the rest of the upload is still stored.
+// Memory is bounded by max-items: an upload with more elements is refused as
+// soon as the limit is passed, without reading the rest, and until then only a
+// compact row per element is kept.
+// Reading happens outside any transaction, so a slow client never holds a
+// connection. The inserts then run as one transaction of JDBC batches. If the
+// stream breaks off or the database fails part-way, nothing is stored and the
+// kiosk can resend the same upload without creating duplicates.
+@Service
+public class AssessmentBatchService {
+
+    private static final String INSERT_SQL = "INSERT INTO diagnoses (user_id, total_score, risk_level, created_at) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final QuestionnaireStore questionnaireStore;
+    private final ScoringModel scoringModel;
+    private final MetricsRollup metricsRollup;
+    private final DashboardStatsService dashboardStatsService;
+    private final DiagnosisSummaryService diagnosisSummaryService;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public AssessmentBatchService(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, QuestionnaireStore questionnaireStore, ScoringModel scoringModel, MetricsRollup metricsRollup,
+            DashboardStatsService dashboardStatsService, DiagnosisSummaryService diagnosisSummaryService,
+            @Value("${app.assessment.batch.chunk-size:500}") int chunkSize,
+            @Value("${app.assessment.batch.max-items:10000}") int maxItems) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.questionnaireStore = questionnaireStore;
+        this.scoringModel = scoringModel;
+        this.metricsRollup = metricsRollup;
+        this.dashboardStatsService = dashboardStatsService;
+        this.diagnosisSummaryService = diagnosisSummaryService;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public AssessmentBatchResult ingest(InputStream body) throws IOException {
+        QuestionnaireStore.Snapshot questionnaire = questionnaireStore.current();
+        Batch batch = new Batch();
+        read(body, questionnaire, batch);
+        transactionTemplate.executeWithoutResult(status -> store(batch));
+
+        // Committed: now it is safe to publish the new rows
+        if (!batch.storedByRisk.isEmpty()) {
+            metricsRollup.diagnosesInserted(batch.storedByRisk);
+        }
+        batch.patients.forEach(dashboardStatsService::evict);
+        return AssessmentBatchResult.builder()
+                .accepted(batch.stored)
+                .rejected(batch.results.size() - batch.stored)
+                .questionnaireVersion(questionnaire.version())
+                .results(batch.results)
+                .build();
+    }
+
+    private void read(InputStream body, QuestionnaireStore.Snapshot questionnaire, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of assessment submissions");
+            }
+
+            List<Object> chunk = new ArrayList<>(chunkSize);
+            int index = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unexpected end of batch");
+                }
+                if (index >= maxItems) {
+                    throw new TooLargeException(maxItems);
+                }
+                // Read as a tree first so a malformed item fails alone without derailing the parser
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    chunk.add(objectMapper.treeToValue(node, AssessmentSubmission.class));
+                } catch (JsonProcessingException e) {
+                    chunk.add("Malformed submission: " + e.getOriginalMessage());
+                }
+                index++;
+                if (chunk.size() == chunkSize) {
+                    evaluateChunk(questionnaire, chunk, index - chunk.size(), batch);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                evaluateChunk(questionnaire, chunk, index - chunk.size(), batch);
+            }
+        }
+    }
+
+    // Chunk elements are either a parsed submission or the error message for one that didn't parse
+    private void evaluateChunk(QuestionnaireStore.Snapshot questionnaire, List<Object> chunk, int offset,
+            Batch batch) {
+        Set<Long> patients = existingPatients(chunk);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<AssessmentBatchResult.Item> items = IntStream.range(0, chunk.size())
+                .parallel()
+                .mapToObj(i -> evaluate(questionnaire, chunk.get(i), offset + i, patients, now))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < items.size(); i++) {
+            AssessmentBatchResult.Item item = items.get(i);
+            if (item.getError() == null) {
+                AssessmentSubmission submission = (AssessmentSubmission) chunk.get(i);
+                LocalDateTime createdAt = submission.getCompletedAt() != null ? submission.getCompletedAt() : now;
+                batch.rows.add(new Object[] { item.getPatientId(), item.getTotalScore(), item.getRiskLevel(),
+                        Timestamp.valueOf(createdAt) });
+            }
+        }
+        batch.results.addAll(items);
+    }
+
+    // Runs inside the upload's transaction, one JDBC batch per chunk
+    private void store(Batch batch) {
+        for (int from = 0; from < batch.rows.size(); from += chunkSize) {
+            List<Object[]> rows = batch.rows.subList(from, Math.min(from + chunkSize, batch.rows.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+            List<DiagnosisSummaryService.Result> summaries = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                summaries.add(new DiagnosisSummaryService.Result((Long) row[0], (Integer) row[1], (String) row[2],
+                        ((Timestamp) row[3]).toLocalDateTime()));
+                batch.storedByRisk.merge((String) row[2], 1L, Long::sum);
+                batch.patients.add((Long) row[0]);
+            }
+            diagnosisSummaryService.recordResults(summaries);
+        }
+        batch.stored = batch.rows.size();
+    }
+
+    private AssessmentBatchResult.Item evaluate(QuestionnaireStore.Snapshot questionnaire, Object element,
+            int index, Set<Long> patients, LocalDateTime now) {
+        if (element instanceof String error) {
+            return rejected(index, null, error);
+        }
+        AssessmentSubmission submission = (AssessmentSubmission) element;
+        Long patientId = submission.getPatientId();
+        if (patientId == null || !patients.contains(patientId)) {
+            return rejected(index, patientId, "Unknown patient");
+        }
+        if (submission.getCompletedAt() != null && submission.getCompletedAt().isAfter(now)) {
+            return rejected(index, patientId, "completedAt is in the future");
+        }
+
+        Map<Long, Integer> answers = submission.getAnswers() != null ? submission.getAnswers() : Map.of();
+        try {
+            questionnaire.validate(answers);
+        } catch (IllegalArgumentException e) {
+            return rejected(index, patientId, e.getMessage());
+        }
+        int totalScore = questionnaire.score(answers);
+        return AssessmentBatchResult.Item.builder()
+                .index(index)
+                .patientId(patientId)
+                .totalScore(totalScore)
+                .riskLevel(scoringModel.riskLevel(totalScore))
+                .build();
+    }
+
+    private Set<Long> existingPatients(List<Object> chunk) {
+        Set<Long> ids = new HashSet<>();
+        for (Object element : chunk) {
+            if (element instanceof AssessmentSubmission submission && submission.getPatientId() != null) {
+                ids.add(submission.getPatientId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE role = 'PATIENT' AND id IN (" + placeholders + ")",
+                Long.class, ids.toArray()));
+    }
+
+    // What one upload has done so far; only published once its transaction commits
+    private static final class Batch {
+        private final List<AssessmentBatchResult.Item> results = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>(); // Accepted items, inserted by store()
+        private final Map<String, Long> storedByRisk = new HashMap<>();
+        private final Set<Long> patients = new HashSet<>();
+        private int stored;
+    }
+
+    public static class TooLargeException extends RuntimeException {
+        public TooLargeException(int maxItems) {
+            super("Batch limit of " + maxItems + " submissions exceeded");
+        }
+    }
+
+    private static AssessmentBatchResult.Item rejected(int index, Long patientId, String error) {
+        return AssessmentBatchResult.Item.builder()
+                .index(index)
+                .patientId(patientId)
+                .error(error)
+                .build();
+    }
+}
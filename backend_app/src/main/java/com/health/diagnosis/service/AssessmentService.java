@@ -1,16 +1,24 @@
 package com.health.diagnosis.service;
 
 import com.health.diagnosis.dto.AssessmentSubmission;
+import com.health.diagnosis.dto.DiagnosisEntry;
+import com.health.diagnosis.dto.DiagnosisHistoryPage;
+import com.health.diagnosis.dto.DiagnosisTrendPoint;
 import com.health.diagnosis.entity.Diagnosis;
 import com.health.diagnosis.entity.User;
 import com.health.diagnosis.repository.DiagnosisRepository;
-import com.health.diagnosis.repository.QuestionRepository;
 import com.health.diagnosis.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,34 +26,28 @@ import java.util.Map;
 public class AssessmentService {
 
     private final DiagnosisRepository diagnosisRepository;
-    private final QuestionRepository questionRepository;
+    private final QuestionnaireStore questionnaireStore;
+    private final ScoringModel scoringModel;
     private final UserRepository userRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final DiagnosisSummaryService diagnosisSummaryService;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_TREND_WINDOW = 20;
+    private static final int MAX_TREND_POINTS = 200;
 
     public Diagnosis submitAssessment(AssessmentSubmission submission) {
-        // Validate: Check if all questions are answered
-        long totalQuestions = questionRepository.count();
-        int answeredQuestions = submission.getAnswers().size();
-
-        if (answeredQuestions < totalQuestions) {
-            throw new IllegalArgumentException(
-                    String.format("Incomplete assessment: %d/%d questions answered. Please answer all questions.",
-                            answeredQuestions, totalQuestions));
-        }
+        QuestionnaireStore.Snapshot questionnaire = questionnaireStore.current();
+        Map<Long, Integer> answers = submission.getAnswers() != null ? submission.getAnswers() : Map.of();
+
+        // Validate against the snapshot: every question answered, nothing unknown or out of range
+        questionnaire.validate(answers);
 
-        // 1. Calculate Score
-        int totalScore = submission.getAnswers().values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        // 1. Calculate Score (category-weighted)
+        int totalScore = questionnaire.score(answers);
 
         // 2. Determine Risk
-        String riskLevel;
-        if (totalScore <= 5) {
-            riskLevel = "Low";
-        } else if (totalScore <= 15) {
-            riskLevel = "Medium";
-        } else {
-            riskLevel = "High";
-        }
+        String riskLevel = scoringModel.riskLevel(totalScore);
 
         // 3. Get Current User
         String email = ((UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal())
@@ -59,10 +61,76 @@ public class AssessmentService {
                 .riskLevel(riskLevel)
                 .build();
 
-        return diagnosisRepository.save(diagnosis);
+        Diagnosis saved = diagnosisRepository.save(diagnosis);
+        diagnosisSummaryService.recordResult(user.getId(), totalScore, riskLevel, saved.getCreatedAt());
+        dashboardStatsService.evict(user.getId());
+        return saved;
     }
 
-    public java.util.List<Diagnosis> getHistory(User user) {
-        return diagnosisRepository.findByUser(user);
+    // Full history, newest first
+    public List<DiagnosisEntry> getHistory(User user) {
+        return diagnosisRepository.findEntriesByUser(user.getId());
+    }
+
+    // Keyset page, newest first; cursor is "<createdAt>_<id>" from the previous page
+    public DiagnosisHistoryPage getHistoryPage(User user, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // Fetch one extra row to know whether an older page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<DiagnosisEntry> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = diagnosisRepository.findLatestEntries(user.getId(), limit);
+        } else {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDateTime createdAt = LocalDateTime.parse(cursor.substring(0, separator));
+            Long id = Long.valueOf(cursor.substring(separator + 1));
+            rows = diagnosisRepository.findEntriesBefore(user.getId(), createdAt, id, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<DiagnosisEntry> entries = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            DiagnosisEntry oldest = entries.get(entries.size() - 1);
+            nextCursor = oldest.getCreatedAt() + "_" + oldest.getId();
+        }
+        return DiagnosisHistoryPage.builder()
+                .entries(entries)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Last `points` scores, oldest first, each with the mean of itself and the (window - 1) before it
+    public List<DiagnosisTrendPoint> getTrend(User user, int window, int points) {
+        int windowSize = Math.max(1, Math.min(window, MAX_TREND_WINDOW));
+        int pointCount = Math.max(1, Math.min(points, MAX_TREND_POINTS));
+        List<DiagnosisEntry> latest = new ArrayList<>(diagnosisRepository.findLatestEntries(user.getId(),
+                PageRequest.of(0, pointCount + windowSize - 1)));
+        Collections.reverse(latest);
+
+        List<DiagnosisTrendPoint> trend = new ArrayList<>(pointCount);
+        long runningSum = 0;
+        for (int i = 0; i < latest.size(); i++) {
+            runningSum += latest.get(i).getTotalScore();
+            if (i >= windowSize) {
+                runningSum -= latest.get(i - windowSize).getTotalScore();
+            }
+            int inWindow = Math.min(i + 1, windowSize);
+            // The oldest (window - 1) rows only seed the first averages
+            if (i >= latest.size() - pointCount) {
+                DiagnosisEntry entry = latest.get(i);
+                trend.add(DiagnosisTrendPoint.builder()
+                        .createdAt(entry.getCreatedAt())
+                        .totalScore(entry.getTotalScore())
+                        .movingAverage((double) runningSum / inWindow)
+                        .build());
+            }
+        }
+        return trend;
     }
 }
@@ -0,0 +1,32 @@
+package com.health.diagnosis.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Where attachment bytes live. Objects are immutable and addressed by key
+// (the content hash, or hash + suffix for derived files such as previews), so
+// implementations never need to handle overwrites or partial updates.
+// Selected with app.attachments.storage=local|s3.
+public interface AttachmentStorage {
+
+    // Moves or copies a complete local file in under key; false if the key already existed
+    boolean put(String key, Path source) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    // -1 when the key does not exist
+    long size(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    // Writes count bytes starting at offset
+    void transferTo(String key, long offset, long count, WritableByteChannel target) throws IOException;
+
+    // Set only when the object is a plain file on this machine (enables sendfile)
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,224 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.AttachmentUsage;
+import com.health.diagnosis.entity.ChatAttachment;
+import com.health.diagnosis.repository.AttachmentUsageRepository;
+import com.health.diagnosis.repository.ChatAttachmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Content-addressed storage for chat attachments. An upload is streamed to a
+// local staging file while its SHA-256 is computed, charged against the
+// uploader's quota, then handed to the configured AttachmentStorage under its
+// hash; if that object already exists the staging file is dropped, so a report
+// forwarded to five doctors is stored once. Download links carry an HMAC of
+// the hash so they can be used in <img> tags without a bearer token but cannot
+// be derived from the file contents alone.
+@Service
+public class AttachmentStore {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final ChatAttachmentRepository attachmentRepository;
+    private final AttachmentUsageRepository usageRepository;
+    private final AttachmentStorage storage;
+    private final Path incomingDir;
+    private final long maxBytes;
+    private final long quotaBytes;
+    private final SecretKeySpec signingKey;
+
+    public AttachmentStore(ChatAttachmentRepository attachmentRepository, AttachmentUsageRepository usageRepository,
+            AttachmentStorage storage,
+            @Value("${app.attachments.dir:uploads/chat}") String dir,
+            @Value("${app.attachments.max-bytes:10485760}") long maxBytes,
+            @Value("${app.attachments.quota-bytes:524288000}") long quotaBytes,
+            @Value("${app.attachments.signing-key:}") String signingKey) {
+        this.attachmentRepository = attachmentRepository;
+        this.usageRepository = usageRepository;
+        this.storage = storage;
+        this.incomingDir = Paths.get(dir, "incoming").toAbsolutePath();
+        this.maxBytes = maxBytes;
+        this.quotaBytes = quotaBytes;
+        // No built-in default: a key known to anyone would let them forge links from a file's hash
+        if (signingKey.length() < 32) {
+            throw new IllegalStateException(
+                    "app.attachments.signing-key must be set to a secret of at least 32 characters");
+        }
+        this.signingKey = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public static String thumbnailKey(String hash) {
+        return hash + ".thumb.jpg";
+    }
+
+    // WRITE
+    public Stored store(InputStream in, String contentType, Long userId) throws IOException {
+        long remaining = remainingQuota(userId);
+        if (remaining <= 0) {
+            throw new QuotaExceededException(quotaBytes);
+        }
+        Path temp = createStagingFile();
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new TooLargeException(maxBytes);
+                    }
+                    if (size > remaining) {
+                        throw new QuotaExceededException(quotaBytes);
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            charge(userId, size);
+            try {
+                boolean deduplicated = !storage.put(hash, temp);
+                record(hash, size, contentType);
+                return new Stored(hash, size, deduplicated);
+            } catch (IOException | RuntimeException e) {
+                if (userId != null) {
+                    usageRepository.refund(userId, size);
+                }
+                throw e;
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Local scratch file for content on its way into storage
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(incomingDir);
+        return Files.createTempFile(incomingDir, "upload-", ".part");
+    }
+
+    private void record(String hash, long size, String contentType) {
+        if (attachmentRepository.existsById(hash)) {
+            return;
+        }
+        try {
+            attachmentRepository.save(ChatAttachment.builder()
+                    .sha256(hash)
+                    .sizeBytes(size)
+                    .contentType(contentType)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Recorded by a concurrent upload of the same bytes
+        }
+    }
+
+    // QUOTA
+    private long remainingQuota(Long userId) {
+        if (userId == null) {
+            return Long.MAX_VALUE;
+        }
+        long used = usageRepository.findById(userId).map(AttachmentUsage::getBytesUsed).orElse(0L);
+        return quotaBytes - used;
+    }
+
+    // The conditional UPDATE is what enforces the quota; the check above only fails fast
+    private void charge(Long userId, long size) {
+        if (userId == null) {
+            return;
+        }
+        if (usageRepository.charge(userId, size, quotaBytes) == 1) {
+            return;
+        }
+        if (!usageRepository.existsById(userId)) {
+            try {
+                usageRepository.save(AttachmentUsage.builder().userId(userId).build());
+            } catch (DataIntegrityViolationException e) {
+                // Created by a concurrent upload from the same user
+            }
+            if (usageRepository.charge(userId, size, quotaBytes) == 1) {
+                return;
+            }
+        }
+        throw new QuotaExceededException(quotaBytes);
+    }
+
+    // READ
+    public Optional<ChatAttachment> find(String hash) {
+        return isHash(hash) ? attachmentRepository.findById(hash) : Optional.empty();
+    }
+
+    // LINK SIGNING
+    public String sign(String hash) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            byte[] tag = mac.doFinal(hash.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(tag);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    public boolean verify(String hash, String signature) {
+        return signature != null && isHash(hash) && MessageDigest.isEqual(
+                sign(hash).getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static boolean isHash(String value) {
+        return value != null && SHA256_HEX.matcher(value).matches();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    public record Stored(String sha256, long size, boolean deduplicated) {
+    }
+
+    public static class TooLargeException extends RuntimeException {
+        public TooLargeException(long maxBytes) {
+            super("File size exceeds " + (maxBytes / (1024 * 1024)) + "MB limit");
+        }
+    }
+
+    public static class QuotaExceededException extends RuntimeException {
+        public QuotaExceededException(long quotaBytes) {
+            super("Attachment storage quota of " + (quotaBytes / (1024 * 1024)) + "MB reached");
+        }
+    }
+}
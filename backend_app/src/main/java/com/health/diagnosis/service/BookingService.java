@@ -0,0 +1,180 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.TimeSlots;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.repository.AppointmentRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Every write that occupies or frees a doctor's slot goes through here.
+// Three layers, cheapest first:
+// 1. SlotAvailabilityIndex answers "free" without touching the database. When
+//    it says "taken" the database is asked before refusing, since the slot may
+//    have been freed on another instance; if so the day is reloaded.
+// 2. A striped lock per doctor serializes the remaining writes for that doctor
+//    on this instance, so winners don't pile up on the same index rows.
+// 3. The unique (doctor_id, appointment_date, active_slot) constraint and the
+//    @Version column make the database the final arbiter across instances.
+@Service
+public class BookingService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final SlotAvailabilityIndex slotIndex;
+    private final PatientRosterService patientRosterService;
+    private final Lock[] stripes;
+
+    public BookingService(AppointmentRepository appointmentRepository, SlotAvailabilityIndex slotIndex,
+            PatientRosterService patientRosterService,
+            @Value("${app.booking.lock-stripes:64}") int stripeCount) {
+        this.appointmentRepository = appointmentRepository;
+        this.slotIndex = slotIndex;
+        this.patientRosterService = patientRosterService;
+        this.stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Appointment book(Appointment appointment) {
+        Appointment saved = apply(appointment, apt -> {
+        });
+        patientRosterService.recordBooking(saved);
+        return saved;
+    }
+
+    public Appointment changeStatus(Appointment appointment, AppointmentStatus status) {
+        return apply(appointment, apt -> apt.setStatus(status));
+    }
+
+    public Appointment update(Appointment appointment, LocalDate date, String timeSlot, AppointmentStatus status,
+            String notes) {
+        Appointment saved = apply(appointment, apt -> {
+            apt.setAppointmentDate(date);
+            apt.setTimeSlot(timeSlot);
+            apt.setStatus(status);
+            apt.setNotes(notes);
+        });
+        patientRosterService.evict(saved.getDoctor().getId());
+        return saved;
+    }
+
+    public void delete(Appointment appointment) {
+        Long doctorId = appointment.getDoctor().getId();
+        Lock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            appointmentRepository.delete(appointment);
+            if (isActive(appointment.getStatus())) {
+                slotIndex.release(doctorId, appointment.getAppointmentDate(), appointment.getTimeSlot());
+            }
+        } finally {
+            lock.unlock();
+        }
+        patientRosterService.evict(doctorId);
+    }
+
+    // Moves the slot reservation from the appointment's current state to the mutated one, then saves.
+    // Any failure puts the index back as it was.
+    private Appointment apply(Appointment appointment, Consumer<Appointment> mutation) {
+        Long doctorId = appointment.getDoctor().getId();
+        boolean isNew = appointment.getId() == null;
+        boolean wasActive = !isNew && isActive(appointment.getStatus());
+        LocalDate oldDate = appointment.getAppointmentDate();
+        String oldSlot = appointment.getTimeSlot();
+
+        mutation.accept(appointment);
+        boolean active = isActive(appointment.getStatus());
+        LocalDate date = appointment.getAppointmentDate();
+        String slot = appointment.getTimeSlot();
+
+        Lock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            if (wasActive) {
+                slotIndex.release(doctorId, oldDate, oldSlot);
+            }
+            boolean reserved = active && slotIndex.tryReserve(doctorId, date, slot);
+            if (active && !reserved && isBookedInDatabase(appointment)) {
+                restore(doctorId, wasActive, oldDate, oldSlot);
+                throw new SlotTakenException(date, slot);
+            }
+
+            try {
+                Appointment saved = appointmentRepository.save(appointment);
+                if (active && !reserved) {
+                    slotIndex.reload(doctorId, date); // The index was stale for this day
+                }
+                return saved;
+            } catch (RuntimeException e) {
+                if (isSlotConflict(e)) {
+                    // Booked on another instance: the cells stay taken, the old ones come back
+                    restore(doctorId, wasActive, oldDate, oldSlot);
+                    throw new SlotTakenException(date, slot);
+                }
+                if (reserved) {
+                    slotIndex.release(doctorId, date, slot);
+                }
+                restore(doctorId, wasActive, oldDate, oldSlot);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Only called for range slots, which the index rejected
+    private boolean isBookedInDatabase(Appointment appointment) {
+        int[] range = TimeSlots.parse(appointment.getTimeSlot());
+        return appointmentRepository.existsOverlappingExcept(appointment.getDoctor().getId(),
+                appointment.getAppointmentDate(), range[0], range[1], appointment.getId());
+    }
+
+    // Only the active-slot unique constraint means "taken"; other integrity errors are real failures
+    private static boolean isSlotConflict(RuntimeException e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraint = cause instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName()
+                    : null;
+            if (mentionsSlotConstraint(constraint) || mentionsSlotConstraint(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mentionsSlotConstraint(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(Appointment.SLOT_CONSTRAINT);
+    }
+
+    private void restore(Long doctorId, boolean wasActive, LocalDate date, String slot) {
+        if (wasActive) {
+            slotIndex.tryReserve(doctorId, date, slot);
+        }
+    }
+
+    private Lock stripe(Long doctorId) {
+        return stripes[Math.floorMod(doctorId.hashCode(), stripes.length)];
+    }
+
+    private static boolean isActive(AppointmentStatus status) {
+        return status != AppointmentStatus.CANCELLED;
+    }
+
+    public static class SlotTakenException extends RuntimeException {
+        public SlotTakenException(LocalDate date, String timeSlot) {
+            super("Time slot " + timeSlot + " on " + date + " is already booked");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.BrokerDestinationStats;
+import com.health.diagnosis.dto.BrokerStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Per-destination STOMP traffic for this node. "published" counts messages
+// handed to the broker (brokerChannel), "delivered" counts MESSAGE frames
+// written to local WebSocket sessions (clientOutboundChannel). In relay mode a
+// message published on one node and delivered on another shows up in the
+// first node's published and the second node's delivered count. Per-user
+// destinations are collapsed (/topic/messages/42 -> /topic/messages/{id}) to
+// keep the table small.
+@Service
+public class BrokerMetrics {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final int MAX_DESTINATIONS = 200;
+    private static final String OTHER = "(other)";
+
+    private final String mode;
+    private final long sampleIntervalMs;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final LongAdder slowConsumersEvicted = new LongAdder();
+    private volatile boolean brokerAvailable;
+
+    public BrokerMetrics(@Value("${app.websocket.broker:simple}") String mode,
+            @Value("${app.websocket.metrics.sample-interval-ms:10000}") long sampleIntervalMs) {
+        this.mode = mode;
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    // For WebSocketConfig: brokerChannel
+    public ChannelInterceptor publishedInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                Counters entry = counters(message);
+                if (entry != null) {
+                    entry.published.increment();
+                }
+                return message;
+            }
+        };
+    }
+
+    // For WebSocketConfig: clientOutboundChannel
+    public ChannelInterceptor deliveredInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                Counters entry = counters(message);
+                if (entry != null) {
+                    entry.delivered.increment();
+                }
+                return message;
+            }
+        };
+    }
+
+    // For WebSocketConfig: transport. Sessions closed for exceeding the send buffer
+    // or send time limit end with SESSION_NOT_RELIABLE.
+    public WebSocketHandlerDecoratorFactory sessionDecorator() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+                if (status.getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()) {
+                    slowConsumersEvicted.increment();
+                }
+                super.afterConnectionClosed(session, status);
+            }
+        };
+    }
+
+    private Counters counters(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return null;
+        }
+        String key = NUMERIC_SEGMENT.matcher(destination).replaceAll("/{id}");
+        Counters entry = counters.get(key);
+        if (entry == null) {
+            entry = counters.size() < MAX_DESTINATIONS
+                    ? counters.computeIfAbsent(key, k -> new Counters())
+                    : counters.computeIfAbsent(OTHER, k -> new Counters());
+        }
+        return entry;
+    }
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        brokerAvailable = event.isBrokerAvailable();
+    }
+
+    // Turns the counters into per-second rates for the interval just ended
+    @Scheduled(fixedRateString = "${app.websocket.metrics.sample-interval-ms:10000}")
+    public void sample() {
+        double seconds = sampleIntervalMs / 1000.0;
+        for (Counters entry : counters.values()) {
+            long published = entry.published.sum();
+            long delivered = entry.delivered.sum();
+            entry.publishedPerSecond = (published - entry.lastPublished) / seconds;
+            entry.deliveredPerSecond = (delivered - entry.lastDelivered) / seconds;
+            entry.lastPublished = published;
+            entry.lastDelivered = delivered;
+        }
+    }
+
+    public BrokerStats snapshot() {
+        List<BrokerDestinationStats> destinations = new ArrayList<>(counters.size());
+        counters.forEach((destination, entry) -> destinations.add(BrokerDestinationStats.builder()
+                .destination(destination)
+                .published(entry.published.sum())
+                .delivered(entry.delivered.sum())
+                .publishedPerSecond(entry.publishedPerSecond)
+                .deliveredPerSecond(entry.deliveredPerSecond)
+                .build()));
+        destinations.sort(Comparator.comparingLong(
+                (BrokerDestinationStats stats) -> stats.getPublished() + stats.getDelivered()).reversed());
+        return BrokerStats.builder()
+                .mode(mode)
+                .brokerAvailable(brokerAvailable)
+                .slowConsumersEvicted(slowConsumersEvicted.sum())
+                .sampleIntervalMs(sampleIntervalMs)
+                .destinations(destinations)
+                .build();
+    }
+
+    private static class Counters {
+        final LongAdder published = new LongAdder();
+        final LongAdder delivered = new LongAdder();
+        // Written only by sample()
+        long lastPublished;
+        long lastDelivered;
+        volatile double publishedPerSecond;
+        volatile double deliveredPerSecond;
+    }
+}
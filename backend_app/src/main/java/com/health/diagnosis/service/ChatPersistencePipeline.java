@@ -0,0 +1,501 @@
+package com.health.diagnosis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.diagnosis.entity.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Write-behind persistence for STOMP chat messages. A message gets its id from
+// ChatIdAllocator and is appended to a local journal, then the caller can
+// publish it right away. A single writer thread drains the bounded queue into
+// JDBC batch inserts.
+// The journal is a series of segments (<journal>.1, .2, ...). Once a segment
+// passes journal-segment-bytes a new one is started, and a closed segment is
+// deleted as soon as every message in it is in the database, so the journal
+// stays small under steady traffic. Leftover segments are replayed on startup.
+// Once journaled, a message is acknowledged: if it cannot be inserted right
+// away it is retried by the writer, or replayed on the next startup.
+// Started as a SmartLifecycle ahead of the web server, so recovery is done and
+// the journal is open before the first STOMP message or history read arrives.
+@Service
+public class ChatPersistencePipeline implements SmartLifecycle {
+
+    // The embedded web server starts at DEFAULT_PHASE - 2048 and stops before this
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages "
+            + "(id, sender_id, recipient_id, sender_name, content, timestamp, is_read, attachment_url, attachment_type) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatIdAllocator idAllocator;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<Journaled> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long readWaitMs;
+    private final boolean fsync;
+    private final Path journalPath;
+    private final long segmentBytes;
+
+    private final Object journalLock = new Object();
+    private FileChannel journal; // Current segment, guarded by journalLock
+    private Segment segment;
+    private long segmentNumber;
+
+    // Ids still on their way to the database, per conversation, so reads can wait for them
+    private final Map<Conversation, Set<Long>> unpersisted = new ConcurrentHashMap<>();
+    private final Object persistedSignal = new Object();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ChatPersistencePipeline(JdbcTemplate jdbcTemplate, ChatIdAllocator idAllocator, ObjectMapper objectMapper,
+            @Value("${app.chat.pipeline.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.chat.pipeline.batch-size:200}") int batchSize,
+            @Value("${app.chat.pipeline.flush-interval-ms:50}") long flushIntervalMs,
+            @Value("${app.chat.pipeline.offer-timeout-ms:200}") long offerTimeoutMs,
+            @Value("${app.chat.pipeline.read-wait-ms:2000}") long readWaitMs,
+            @Value("${app.chat.pipeline.journal-fsync:true}") boolean fsync,
+            @Value("${app.chat.pipeline.journal:data/chat-journal.log}") String journalPath,
+            @Value("${app.chat.pipeline.journal-segment-bytes:8388608}") long segmentBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.readWaitMs = readWaitMs;
+        this.fsync = fsync;
+        this.journalPath = Paths.get(journalPath).toAbsolutePath();
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        try {
+            Files.createDirectories(journalPath.getParent());
+            recover();
+            synchronized (journalLock) {
+                openSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open chat journal " + journalPath, e);
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "chat-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Assigns id and journals the message; returns once it is durable locally
+    public ChatMessage submit(ChatMessage message) {
+        if (!running) {
+            throw new IllegalStateException("Chat persistence is not running");
+        }
+        message.setId(idAllocator.nextId());
+        if (message.getIsRead() == null) {
+            message.setIsRead(false);
+        }
+
+        byte[] line = toJournalLine(message);
+        Journaled entry;
+        synchronized (journalLock) {
+            try {
+                journal.write(ByteBuffer.wrap(line));
+                if (fsync) {
+                    journal.force(false);
+                }
+                entry = new Journaled(message, segment);
+                segment.pending++;
+                if (journal.position() >= segmentBytes) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal chat message", e);
+            }
+        }
+        Conversation conversation = Conversation.of(message.getSenderId(), message.getRecipientId());
+        if (conversation != null) {
+            unpersisted.computeIfAbsent(conversation, c -> ConcurrentHashMap.newKeySet()).add(message.getId());
+        }
+
+        try {
+            if (!queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                // Writer is behind: persist on the caller's thread so producers slow down
+                persistOnCallerThread(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            persistOnCallerThread(entry);
+        }
+        return message;
+    }
+
+    private void persistOnCallerThread(Journaled entry) {
+        boolean inserted = false;
+        try {
+            insertBatch(List.of(entry.message()));
+            inserted = true;
+        } catch (RuntimeException e) {
+            System.err.println("Chat insert on caller thread failed, handing it to the writer: " + e.getMessage());
+        }
+        if (inserted) {
+            persisted(List.of(entry));
+            return;
+        }
+        // Already journaled, so still acknowledged: wait for room and let the writer retry it
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            untrack(List.of(entry)); // Stays in its segment and is replayed on the next startup
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // READ-YOUR-WRITES
+    // Blocks until every message between the two users that was submitted before this call is in the
+    // database, up to read-wait-ms. Returns false on timeout; the caller then reads what is there.
+    public boolean awaitPersisted(Long userA, Long userB) {
+        Conversation conversation = Conversation.of(userA, userB);
+        Set<Long> pendingIds = conversation != null ? unpersisted.get(conversation) : null;
+        if (pendingIds == null || pendingIds.isEmpty()) {
+            return true;
+        }
+        List<Long> waitingFor = List.copyOf(pendingIds);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readWaitMs);
+        synchronized (persistedSignal) {
+            while (isAnyUnpersisted(conversation, waitingFor)) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                try {
+                    persistedSignal.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isAnyUnpersisted(Conversation conversation, List<Long> ids) {
+        Set<Long> pendingIds = unpersisted.get(conversation);
+        if (pendingIds == null) {
+            return false;
+        }
+        for (Long id : ids) {
+            if (pendingIds.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // WRITER
+    private void drainLoop() {
+        List<Journaled> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Journaled first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (writeWithRetry(batch)) {
+                    persisted(batch);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch);
+                    if (!batch.isEmpty() && writeWithRetry(batch)) {
+                        persisted(batch);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns false if the batch could not be written; it then stays in the journal for the next startup
+    private boolean writeWithRetry(List<Journaled> batch) {
+        List<ChatMessage> messages = batch.stream().map(Journaled::message).collect(Collectors.toList());
+        long backoffMs = 100;
+        while (true) {
+            try {
+                insertBatch(messages);
+                return true;
+            } catch (RuntimeException e) {
+                System.err.println("Chat batch insert failed, retrying: " + e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    if (!running) {
+                        return false;
+                    }
+                }
+                backoffMs = Math.min(backoffMs * 2, 5000);
+            }
+        }
+    }
+
+    private void insertBatch(List<ChatMessage> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, m) -> {
+            ps.setLong(1, m.getId());
+            ps.setObject(2, m.getSenderId());
+            ps.setObject(3, m.getRecipientId());
+            ps.setString(4, m.getSenderName());
+            ps.setString(5, m.getContent());
+            ps.setTimestamp(6, m.getTimestamp() != null ? Timestamp.valueOf(m.getTimestamp()) : null);
+            ps.setBoolean(7, Boolean.TRUE.equals(m.getIsRead()));
+            ps.setString(8, m.getAttachmentUrl());
+            ps.setString(9, m.getAttachmentType());
+        });
+    }
+
+    private void persisted(List<Journaled> entries) {
+        synchronized (journalLock) {
+            Set<Segment> touched = new LinkedHashSet<>();
+            for (Journaled entry : entries) {
+                entry.segment().pending--;
+                touched.add(entry.segment());
+            }
+            for (Segment done : touched) {
+                if (done.pending == 0) {
+                    release(done);
+                }
+            }
+        }
+
+        untrack(entries);
+    }
+
+    private void untrack(List<Journaled> entries) {
+        for (Journaled entry : entries) {
+            ChatMessage message = entry.message();
+            Conversation conversation = Conversation.of(message.getSenderId(), message.getRecipientId());
+            if (conversation != null) {
+                unpersisted.computeIfPresent(conversation, (c, ids) -> {
+                    ids.remove(message.getId());
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        synchronized (persistedSignal) {
+            persistedSignal.notifyAll();
+        }
+    }
+
+    // SEGMENTS (guarded by journalLock)
+    private void openSegment() throws IOException {
+        segmentNumber++;
+        Path path = journalPath.resolveSibling(journalPath.getFileName() + "." + segmentNumber);
+        journal = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segment = new Segment(path);
+    }
+
+    private void rotate() throws IOException {
+        Segment closed = segment;
+        journal.close();
+        closed.sealed = true;
+        openSegment();
+        if (closed.pending == 0) {
+            release(closed);
+        }
+    }
+
+    // Everything in the segment has reached the database
+    private void release(Segment done) {
+        try {
+            if (done.sealed) {
+                Files.deleteIfExists(done.path);
+            } else if (done == segment) {
+                journal.truncate(0);
+                journal.position(0);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to release chat journal segment " + done.path + ": " + e.getMessage());
+        }
+    }
+
+    // RECOVERY
+    // Re-inserts journaled messages that never made it to the database, one segment at a time
+    private void recover() throws IOException {
+        List<Path> segments = leftoverSegments();
+        long recovered = 0;
+        for (Path path : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                List<ChatMessage> chunk = new ArrayList<>(batchSize);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        chunk.add(objectMapper.readValue(line, ChatMessage.class));
+                    } catch (IOException e) {
+                        // A torn last line from a crash mid-write was never acknowledged
+                        System.err.println("Skipping unreadable chat journal entry");
+                    }
+                    if (chunk.size() == batchSize) {
+                        recovered += insertMissing(chunk);
+                        chunk.clear();
+                    }
+                }
+                recovered += insertMissing(chunk);
+            }
+        }
+        if (recovered > 0) {
+            System.out.println("✓ Recovered " + recovered + " journaled chat messages");
+        }
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private int insertMissing(List<ChatMessage> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        String ids = chunk.stream().map(m -> String.valueOf(m.getId())).collect(Collectors.joining(","));
+        Set<Long> existing = new HashSet<>(
+                jdbcTemplate.queryForList("SELECT id FROM chat_messages WHERE id IN (" + ids + ")", Long.class));
+        List<ChatMessage> missing = chunk.stream()
+                .filter(m -> !existing.contains(m.getId()))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            insertBatch(missing);
+        }
+        return missing.size();
+    }
+
+    // <journal>.<n> in segment order, plus a single-file journal left by older versions
+    private List<Path> leftoverSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (Files.isRegularFile(journalPath)) {
+            segments.add(journalPath);
+        }
+        String prefix = journalPath.getFileName() + ".";
+        List<Path> numbered = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(journalPath.getParent(), prefix + "*")) {
+            for (Path path : dir) {
+                if (path.getFileName().toString().substring(prefix.length()).matches("\\d+")) {
+                    numbered.add(path);
+                }
+            }
+        }
+        numbered.sort(Comparator.comparingLong(path -> Long.parseLong(
+                path.getFileName().toString().substring(prefix.length()))));
+        segments.addAll(numbered);
+        return segments;
+    }
+
+    private byte[] toJournalLine(ChatMessage message) {
+        try {
+            return (objectMapper.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize chat message", e);
+        }
+    }
+
+    // After the web server has stopped: the writer drains what is queued, then the journal closes
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close chat journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private int pending; // Journaled here but not yet in the database
+        private boolean sealed;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+    }
+
+    private record Journaled(ChatMessage message, Segment segment) {
+    }
+
+    // Unordered pair of users, so both directions of a chat share one entry
+    private record Conversation(long low, long high) {
+        static Conversation of(Long a, Long b) {
+            if (a == null || b == null) {
+                return null;
+            }
+            return new Conversation(Math.min(a, b), Math.max(a, b));
+        }
+    }
+}
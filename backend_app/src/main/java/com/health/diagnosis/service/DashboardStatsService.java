@@ -0,0 +1,97 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.DashboardStats;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.AppointmentRepository;
+import com.health.diagnosis.repository.DiagnosisSummaryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Builds each role's dashboard from COUNT / top-1 queries instead of loading
+// entity lists, and caches the result per user for a few seconds.
+@Service
+public class DashboardStatsService {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final DiagnosisSummaryRepository diagnosisSummaryRepository;
+    private final MetricsRollup metricsRollup;
+    private final long ttlMillis;
+
+    private final Map<Long, CachedStats> cache = new ConcurrentHashMap<>();
+
+    public DashboardStatsService(AppointmentRepository appointmentRepository,
+            DiagnosisSummaryRepository diagnosisSummaryRepository,
+            MetricsRollup metricsRollup,
+            @Value("${app.dashboard.cache-ttl-ms:30000}") long ttlMillis) {
+        this.appointmentRepository = appointmentRepository;
+        this.diagnosisSummaryRepository = diagnosisSummaryRepository;
+        this.metricsRollup = metricsRollup;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public DashboardStats getStats(User user) {
+        long now = System.currentTimeMillis();
+        CachedStats cached = cache.get(user.getId());
+        if (cached != null && cached.expiresAt > now) {
+            return cached.stats;
+        }
+
+        DashboardStats stats = compute(user);
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+        cache.put(user.getId(), new CachedStats(stats, now + ttlMillis));
+        return stats;
+    }
+
+    public void evict(Long userId) {
+        cache.remove(userId);
+    }
+
+    private DashboardStats compute(User user) {
+        DashboardStats stats = new DashboardStats();
+        LocalDate today = LocalDate.now();
+
+        if (user.getRole() == Role.PATIENT) {
+            stats.setUpcomingAppointments((int) appointmentRepository.countUpcomingByPatient(user, today));
+
+            // Denormalized latest result, one primary-key read
+            diagnosisSummaryRepository.findById(user.getId()).ifPresent(summary -> {
+                stats.setLastRiskLevel(summary.getLatestRiskLevel());
+                if (summary.getLatestAt() != null) {
+                    stats.setLastAssessmentDate(summary.getLatestAt().toLocalDate().toString());
+                }
+            });
+
+        } else if (user.getRole() == Role.DOCTOR) {
+            Object[] counts = appointmentRepository.doctorDashboardCounts(user, today).get(0);
+            stats.setTodayAppointments(toInt(counts[0]));
+            stats.setDoctorTotalPatients(toInt(counts[1]));
+            stats.setPendingAppointments(toInt(counts[2]));
+
+        } else if (user.getRole() == Role.ADMIN) {
+            // Served from the in-memory rollup, no queries
+            stats.setTotalUsers(metricsRollup.totalUsers());
+            stats.setTotalDoctors(metricsRollup.countUsers(Role.DOCTOR));
+            stats.setAdminTotalPatients(metricsRollup.countUsers(Role.PATIENT));
+            stats.setTotalAppointments(metricsRollup.totalAppointments());
+        }
+
+        return stats;
+    }
+
+    // SUM over zero rows is NULL
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private record CachedStats(DashboardStats stats, long expiresAt) {
+    }
+}
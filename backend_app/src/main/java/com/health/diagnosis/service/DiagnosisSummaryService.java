@@ -0,0 +1,142 @@
+package com.health.diagnosis.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Keeps diagnosis_summaries in step with the diagnoses table. Each write is a
+// single conditional UPDATE (count += n, latest fields replaced only when the
+// new result is at least as recent), falling back to INSERT for a patient's
+// first result. Works for both the single submit and the batch upload paths.
+@Service
+@RequiredArgsConstructor
+public class DiagnosisSummaryService {
+
+    // latest_at must be assigned last: MySQL evaluates SET clauses left to right
+    private static final String UPDATE_SQL = "UPDATE diagnosis_summaries SET "
+            + "assessment_count = assessment_count + ?, "
+            + "latest_score = CASE WHEN latest_at IS NULL OR latest_at <= ? THEN ? ELSE latest_score END, "
+            + "latest_risk_level = CASE WHEN latest_at IS NULL OR latest_at <= ? THEN ? ELSE latest_risk_level END, "
+            + "latest_at = CASE WHEN latest_at IS NULL OR latest_at <= ? THEN ? ELSE latest_at END "
+            + "WHERE user_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO diagnosis_summaries "
+            + "(user_id, assessment_count, latest_score, latest_risk_level, latest_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void recordResult(Long userId, int totalScore, String riskLevel, LocalDateTime createdAt) {
+        record(List.of(new Result(userId, totalScore, riskLevel, createdAt)));
+    }
+
+    // Results may contain several entries per user; they are folded into one write per user
+    public void recordResults(Collection<Result> results) {
+        Map<Long, Result> perUser = new HashMap<>();
+        for (Result result : results) {
+            perUser.merge(result.userId(), result, Result::combine);
+        }
+        record(new ArrayList<>(perUser.values()));
+    }
+
+    private void record(List<Result> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, results, results.size(), (ps, r) -> {
+            Timestamp at = Timestamp.valueOf(r.latestAt());
+            ps.setLong(1, r.count());
+            ps.setTimestamp(2, at);
+            ps.setInt(3, r.latestScore());
+            ps.setTimestamp(4, at);
+            ps.setString(5, r.latestRiskLevel());
+            ps.setTimestamp(6, at);
+            ps.setTimestamp(7, at);
+            ps.setLong(8, r.userId());
+        })[0];
+
+        List<Result> missing = new ArrayList<>();
+        List<Result> unknown = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(results.get(i));
+            } else if (updated[i] < 0) {
+                // Statement.SUCCESS_NO_INFO: the driver ran it but did not say whether a row matched
+                unknown.add(results.get(i));
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Set<Long> existing = withSummary(unknown);
+            for (Result r : unknown) {
+                if (!existing.contains(r.userId())) {
+                    missing.add(r);
+                }
+            }
+        }
+        missing.forEach(this::insertOrUpdate);
+    }
+
+    private Set<Long> withSummary(List<Result> results) {
+        String placeholders = String.join(",", Collections.nCopies(results.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM diagnosis_summaries WHERE user_id IN (" + placeholders + ")",
+                Long.class, results.stream().map(Result::userId).toArray()));
+    }
+
+    private void insertOrUpdate(Result r) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, r.userId(), r.count(), r.latestScore(), r.latestRiskLevel(),
+                    Timestamp.valueOf(r.latestAt()));
+        } catch (DuplicateKeyException e) {
+            // Another request created the row first
+            Timestamp at = Timestamp.valueOf(r.latestAt());
+            jdbcTemplate.update(UPDATE_SQL, r.count(), at, r.latestScore(), at, r.latestRiskLevel(), at, at,
+                    r.userId());
+        }
+    }
+
+    public void delete(Long userId) {
+        jdbcTemplate.update("DELETE FROM diagnosis_summaries WHERE user_id = ?", userId);
+    }
+
+    // Creates summaries for patients whose diagnoses predate the table (or were seeded directly)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int created = jdbcTemplate.update("INSERT INTO diagnosis_summaries "
+                + "(user_id, assessment_count, latest_score, latest_risk_level, latest_at) "
+                + "SELECT d.user_id, (SELECT COUNT(*) FROM diagnoses c WHERE c.user_id = d.user_id), "
+                + "d.total_score, d.risk_level, d.created_at FROM diagnoses d "
+                + "WHERE d.id = (SELECT d2.id FROM diagnoses d2 WHERE d2.user_id = d.user_id "
+                + "ORDER BY d2.created_at DESC, d2.id DESC LIMIT 1) "
+                + "AND NOT EXISTS (SELECT 1 FROM diagnosis_summaries s WHERE s.user_id = d.user_id)");
+        if (created > 0) {
+            System.out.println("✓ Built diagnosis summaries for " + created + " patients");
+        }
+    }
+
+    public record Result(Long userId, long count, int latestScore, String latestRiskLevel, LocalDateTime latestAt) {
+
+        public Result(Long userId, int totalScore, String riskLevel, LocalDateTime createdAt) {
+            this(userId, 1, totalScore, riskLevel, createdAt);
+        }
+
+        Result combine(Result other) {
+            Result latest = other.latestAt.isBefore(latestAt) ? this : other;
+            return new Result(userId, count + other.count, latest.latestScore, latest.latestRiskLevel,
+                    latest.latestAt);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.health.diagnosis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.health.diagnosis.dto.AppointmentView;
+import com.health.diagnosis.dto.AppointmentViewPage;
+import com.health.diagnosis.dto.UserSummary;
+import com.health.diagnosis.dto.UserSummaryPage;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.AppointmentRepository;
+import com.health.diagnosis.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+// Paged user and appointment lists for the admin screens (and the contact
+// pickers), always as slim projections. Pages are keyset-based: the cursor is
+// "<sort value>_<id>" of the last row, so page 1000 costs the same as page 1.
+// The NDJSON exports walk the same keyset pages and write each one out before
+// fetching the next, so memory use does not grow with the table.
+@Service
+@RequiredArgsConstructor
+public class DirectoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_BATCH_SIZE = MAX_PAGE_SIZE;
+
+    private final UserRepository userRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    // USERS
+    // sort: "newest" (id descending, default) or "name"
+    public UserSummaryPage listUsers(Role role, String search, String sort, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String pattern = likePattern(search);
+        boolean byName = isNameSort(sort);
+
+        List<UserSummary> rows = userRows(role, pattern, byName, cursor, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSummary> users = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSummary last = users.get(users.size() - 1);
+            nextCursor = (byName ? last.getFullName() : "") + "_" + last.getId();
+        }
+        return UserSummaryPage.builder()
+                .users(users)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .total(isBlank(cursor) ? userRepository.countSummaries(role, pattern) : null)
+                .build();
+    }
+
+    private List<UserSummary> userRows(Role role, String pattern, boolean byName, String cursor, Pageable limit) {
+        if (isBlank(cursor)) {
+            return byName ? userRepository.findSummariesByName(role, pattern, limit)
+                    : userRepository.findSummaries(role, pattern, limit);
+        }
+        // Names may contain '_', the id after the last one never does
+        int separator = cursor.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        Long id = Long.valueOf(cursor.substring(separator + 1));
+        return byName ? userRepository.findSummariesByNameAfter(role, pattern, cursor.substring(0, separator), id, limit)
+                : userRepository.findSummariesBefore(role, pattern, id, limit);
+    }
+
+    // The first batch is read up front so bad parameters fail before the response starts
+    public StreamingResponseBody exportUsers(Role role, String search, String sort) {
+        UserSummaryPage first = listUsers(role, search, sort, null, EXPORT_BATCH_SIZE);
+        return out -> {
+            try (SequenceWriter writer = ndjsonWriter(out)) {
+                UserSummaryPage page = first;
+                while (true) {
+                    writer.writeAll(page.getUsers());
+                    writer.flush();
+                    if (page.getNextCursor() == null) {
+                        break;
+                    }
+                    page = listUsers(role, search, sort, page.getNextCursor(), EXPORT_BATCH_SIZE);
+                }
+            }
+        };
+    }
+
+    // APPOINTMENTS
+    // sort: "newest" (appointment date descending, default) or "oldest"
+    public AppointmentViewPage listAppointments(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, String sort, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean oldestFirst = isOldestSort(sort);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<AppointmentView> rows;
+        if (isBlank(cursor)) {
+            rows = oldestFirst
+                    ? appointmentRepository.findFilteredViewsOldestFirst(status, doctorId, patientId, from, to, limit)
+                    : appointmentRepository.findFilteredViews(status, doctorId, patientId, from, to, limit);
+        } else {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDate date = LocalDate.parse(cursor.substring(0, separator));
+            Long id = Long.valueOf(cursor.substring(separator + 1));
+            rows = oldestFirst
+                    ? appointmentRepository.findFilteredViewsAfter(status, doctorId, patientId, from, to, date, id,
+                            limit)
+                    : appointmentRepository.findFilteredViewsBefore(status, doctorId, patientId, from, to, date, id,
+                            limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AppointmentView> appointments = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            AppointmentView last = appointments.get(appointments.size() - 1);
+            nextCursor = last.getAppointmentDate() + "_" + last.getId();
+        }
+        return AppointmentViewPage.builder()
+                .appointments(appointments)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .total(isBlank(cursor)
+                        ? appointmentRepository.countFilteredViews(status, doctorId, patientId, from, to)
+                        : null)
+                .build();
+    }
+
+    public StreamingResponseBody exportAppointments(AppointmentStatus status, Long doctorId, Long patientId,
+            LocalDate from, LocalDate to, String sort) {
+        AppointmentViewPage first = listAppointments(status, doctorId, patientId, from, to, sort, null,
+                EXPORT_BATCH_SIZE);
+        return out -> {
+            try (SequenceWriter writer = ndjsonWriter(out)) {
+                AppointmentViewPage page = first;
+                while (true) {
+                    writer.writeAll(page.getAppointments());
+                    writer.flush();
+                    if (page.getNextCursor() == null) {
+                        break;
+                    }
+                    page = listAppointments(status, doctorId, patientId, from, to, sort, page.getNextCursor(),
+                            EXPORT_BATCH_SIZE);
+                }
+            }
+        };
+    }
+
+    // One JSON document per line
+    private SequenceWriter ndjsonWriter(OutputStream out) throws IOException {
+        return objectMapper.writer().withRootValueSeparator("\n").writeValues(out);
+    }
+
+    private static boolean isNameSort(String sort) {
+        return isAlternateSort(sort, "name");
+    }
+
+    private static boolean isOldestSort(String sort) {
+        return isAlternateSort(sort, "oldest");
+    }
+
+    // "newest" is every list's default; the only other accepted value is the list's alternate
+    private static boolean isAlternateSort(String sort, String alternate) {
+        if (isBlank(sort) || "newest".equalsIgnoreCase(sort)) {
+            return false;
+        }
+        if (alternate.equalsIgnoreCase(sort)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown sort: " + sort);
+    }
+
+    // Case-insensitive "contains"; LIKE wildcards in the input are matched literally
+    private static String likePattern(String search) {
+        if (isBlank(search)) {
+            return null;
+        }
+        String escaped = search.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,249 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.DoctorRecommendation;
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.DoctorProfile;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ranked doctor lists per specialization, served from memory. A full rebuild
+// runs at startup and on a timer; in between, Hibernate post-commit events on
+// appointments, doctor profiles and doctor users mark single doctors dirty and
+// only those are re-read (two indexed queries each) before the next lookup.
+// Events only fire for writes made on this instance; other instances' writes
+// show up after the next timed rebuild.
+@Service
+public class DoctorRecommendationService implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String CANDIDATE_SQL = "SELECT u.id, u.full_name, u.specialization, p.rating, "
+            + "p.years_of_experience, p.consultation_fee FROM users u "
+            + "LEFT JOIN doctor_profiles p ON p.user_id = u.id WHERE u.role = 'DOCTOR'";
+
+    private static final String LOAD_SQL = "SELECT doctor_id, COUNT(*) FROM appointments "
+            + "WHERE status <> 'CANCELLED' AND appointment_date >= ? GROUP BY doctor_id";
+
+    private static final String DOCTOR_LOAD_SQL = "SELECT COUNT(*) FROM appointments "
+            + "WHERE status <> 'CANCELLED' AND appointment_date >= ? AND doctor_id = ?";
+
+    private static final int AVAILABILITY_DAYS = 7;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotAvailabilityIndex slotIndex;
+    private final int dailySlots;
+
+    private final Map<Long, DoctorRecommendation> candidates = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyDoctors = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, List<DoctorRecommendation>> rankings = Map.of();
+
+    public DoctorRecommendationService(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+            SlotAvailabilityIndex slotIndex,
+            @Value("${app.recommendations.daily-slots:11}") int dailySlots) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.slotIndex = slotIndex;
+        this.dailySlots = dailySlots;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // READS
+    // High risk -> Psychiatrist, otherwise Therapist; falls back to all doctors if none match
+    public List<DoctorRecommendation> recommend(String riskLevel, int limit) {
+        String specialization = "High".equalsIgnoreCase(riskLevel) ? "Psychiatrist" : "Therapist";
+        return top(specialization, limit);
+    }
+
+    public List<DoctorRecommendation> top(String specialization, int limit) {
+        if (!dirtyDoctors.isEmpty()) {
+            refreshDirty();
+        }
+        Map<String, List<DoctorRecommendation>> current = rankings;
+        List<DoctorRecommendation> ranked = current.get(key(specialization));
+        if (ranked == null || ranked.isEmpty()) {
+            ranked = current.getOrDefault("", List.of());
+        }
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    // REFRESH
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.recommendations.refresh-interval-ms:600000}",
+            initialDelayString = "${app.recommendations.refresh-interval-ms:600000}")
+    public synchronized void refreshAll() {
+        dirtyDoctors.clear();
+        Map<Long, Long> load = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL,
+                rs -> {
+                    load.put(rs.getLong(1), rs.getLong(2));
+                },
+                LocalDate.now());
+
+        Map<Long, DoctorRecommendation> fresh = new HashMap<>();
+        jdbcTemplate.query(CANDIDATE_SQL,
+                rs -> {
+                    DoctorRecommendation candidate = candidate(rs, load.getOrDefault(rs.getLong(1), 0L));
+                    fresh.put(candidate.getDoctorId(), candidate);
+                });
+        candidates.keySet().retainAll(fresh.keySet());
+        candidates.putAll(fresh);
+        rerank();
+    }
+
+    private synchronized void refreshDirty() {
+        List<Long> doctorIds = new ArrayList<>(dirtyDoctors);
+        dirtyDoctors.removeAll(doctorIds);
+        for (Long doctorId : doctorIds) {
+            Long upcoming = jdbcTemplate.queryForObject(DOCTOR_LOAD_SQL, Long.class, LocalDate.now(), doctorId);
+            List<DoctorRecommendation> rows = jdbcTemplate.query(CANDIDATE_SQL + " AND u.id = ?",
+                    (rs, row) -> candidate(rs, upcoming), doctorId);
+            if (rows.isEmpty()) {
+                candidates.remove(doctorId); // deleted, or no longer a doctor
+            } else {
+                candidates.put(doctorId, rows.get(0));
+            }
+        }
+        rerank();
+    }
+
+    private void rerank() {
+        Map<String, List<DoctorRecommendation>> grouped = new HashMap<>();
+        for (DoctorRecommendation candidate : candidates.values()) {
+            grouped.computeIfAbsent(key(candidate.getSpecialization()), k -> new ArrayList<>()).add(candidate);
+            grouped.computeIfAbsent("", k -> new ArrayList<>()).add(candidate);
+        }
+        Comparator<DoctorRecommendation> byScore = Comparator.comparingDouble(DoctorRecommendation::getScore)
+                .reversed()
+                .thenComparing(DoctorRecommendation::getDoctorId);
+        Map<String, List<DoctorRecommendation>> ranked = new HashMap<>();
+        grouped.forEach((specialization, list) -> {
+            list.sort(byScore);
+            ranked.put(specialization, List.copyOf(list));
+        });
+        rankings = ranked;
+    }
+
+    private DoctorRecommendation candidate(ResultSet rs, long upcoming) throws SQLException {
+        Long doctorId = rs.getLong(1);
+        Double rating = rs.getObject(4, Double.class);
+        Integer years = rs.getObject(5, Integer.class);
+        Double fee = rs.getObject(6, Double.class);
+
+        int capacity = dailySlots * AVAILABILITY_DAYS;
+        int freeSlots = Math.max(0, capacity - slotIndex.bookedCells(doctorId, LocalDate.now(), AVAILABILITY_DAYS));
+
+        return DoctorRecommendation.builder()
+                .doctorId(doctorId)
+                .fullName(rs.getString(2))
+                .specialization(rs.getString(3))
+                .rating(rating)
+                .yearsOfExperience(years)
+                .consultationFee(fee)
+                .upcomingAppointments(upcoming)
+                .freeSlotsThisWeek(freeSlots)
+                .score(score(rating, years, fee, upcoming, freeSlots, capacity))
+                .build();
+    }
+
+    // Each factor is scaled to 0..1; missing profile data counts as average
+    private static double score(Double rating, Integer years, Double fee, long upcoming, int freeSlots,
+            int capacity) {
+        double ratingScore = rating != null ? Math.min(rating, 5.0) / 5.0 : 0.5;
+        double experienceScore = years != null ? Math.min(years, 30) / 30.0 : 0.5;
+        double feeScore = fee != null ? 1.0 / (1.0 + Math.max(fee, 0) / 1000.0) : 0.5;
+        double loadScore = 1.0 / (1.0 + upcoming / 10.0);
+        double availabilityScore = capacity > 0 ? (double) freeSlots / capacity : 0;
+        return 0.35 * ratingScore + 0.20 * experienceScore + 0.15 * feeScore
+                + 0.15 * loadScore + 0.15 * availabilityScore;
+    }
+
+    private static String key(String specialization) {
+        return specialization == null ? "" : specialization.trim().toLowerCase();
+    }
+
+    // HIBERNATE EVENTS
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    private void markDirty(Object entity) {
+        if (entity instanceof Appointment appointment && appointment.getDoctor() != null) {
+            dirtyDoctors.add(appointment.getDoctor().getId());
+        } else if (entity instanceof DoctorProfile profile && profile.getUser() != null) {
+            dirtyDoctors.add(profile.getUser().getId());
+        } else if (entity instanceof User user) {
+            // Role may have changed either way, refreshDirty drops non-doctors
+            if (user.getId() != null && (candidates.containsKey(user.getId())
+                    || user.getRole() == Role.DOCTOR)) {
+                dirtyDoctors.add(user.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Appointment.class || type == DoctorProfile.class || type == User.class;
+    }
+}
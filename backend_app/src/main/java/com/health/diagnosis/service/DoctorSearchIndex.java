@@ -0,0 +1,401 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.DoctorSearchPage;
+import com.health.diagnosis.dto.DoctorSearchResult;
+import com.health.diagnosis.entity.DoctorProfile;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Doctor search served from memory. Doctors are kept in one array ordered by
+// rating, with an inverted index (term -> BitSet of array positions) for
+// specialization, each spoken language and the verified flag. Ranges become
+// bitsets too: minimum rating is a prefix of the array, and a fee range is cut
+// from a fee-ordered index (see FeeIndex). A query ANDs them all, counts with
+// popcount and walks the set bits only as far as the requested page, so
+// results come out already sorted and no unmatched doctor is visited. Writes to doctors or their profiles mark the
+// doctor dirty; the snapshot is rebuilt before the next search.
+// Writes made on another instance are picked up by the hourly full reload.
+@Service
+public class DoctorSearchIndex implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String DOCTOR_SQL = "SELECT u.id, p.id, u.full_name, u.specialization, u.is_verified, "
+            + "p.rating, p.years_of_experience, p.consultation_fee, p.languages_spoken, p.clinic_address, "
+            + "p.available_hours FROM users u LEFT JOIN doctor_profiles p ON p.user_id = u.id "
+            + "WHERE u.role = 'DOCTOR'";
+
+    private static final Comparator<DoctorSearchResult> BY_RATING = Comparator
+            .comparing(DoctorSearchResult::getRating, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(DoctorSearchResult::getFullName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(DoctorSearchResult::getDoctorId);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, DoctorSearchResult> entries = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyDoctors = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public DoctorSearchIndex(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // SEARCH
+    // All filters are optional; page is zero-based
+    public DoctorSearchPage search(String specialization, String language, Double minFee, Double maxFee,
+            Double minRating, boolean verifiedOnly, int page, int size) {
+        Snapshot current = current();
+        BitSet matches = new BitSet(current.doctors().length);
+        matches.set(0, current.doctors().length);
+        if (!and(matches, current.bySpecialization(), specialization)
+                || !and(matches, current.byLanguage(), language)) {
+            return page(List.of(), 0, page, size);
+        }
+        if (verifiedOnly) {
+            matches.and(current.verified());
+        }
+
+        if (minFee != null || maxFee != null) {
+            matches.and(current.fees().between(minFee != null ? minFee : Double.NEGATIVE_INFINITY,
+                    maxFee != null ? maxFee : Double.POSITIVE_INFINITY));
+        }
+        if (minRating != null) {
+            matches.clear(current.ratedAtLeast(minRating), current.doctors().length);
+        }
+
+        // Count with popcount and only walk as far as the requested page
+        long total = matches.cardinality();
+        long first = (long) page * size;
+        long seen = 0;
+        List<DoctorSearchResult> results = new ArrayList<>(size);
+        for (int i = matches.nextSetBit(0); i >= 0 && results.size() < size; i = matches.nextSetBit(i + 1)) {
+            if (seen++ >= first) {
+                results.add(current.doctors()[i]);
+            }
+        }
+        return page(results, total, page, size);
+    }
+
+    // Intersects with the posting list for term; false when the term is unknown (no matches)
+    private static boolean and(BitSet matches, Map<String, BitSet> index, String term) {
+        String key = key(term);
+        if (key.isEmpty()) {
+            return true;
+        }
+        BitSet postings = index.get(key);
+        if (postings == null) {
+            return false;
+        }
+        matches.and(postings);
+        return true;
+    }
+
+    private static DoctorSearchPage page(List<DoctorSearchResult> doctors, long total, int page, int size) {
+        return DoctorSearchPage.builder()
+                .doctors(doctors)
+                .page(page)
+                .size(size)
+                .totalElements(total)
+                .totalPages((int) ((total + size - 1) / size))
+                .build();
+    }
+
+    // Distinct specializations and languages, for filter dropdowns
+    public Map<String, List<String>> facets() {
+        Snapshot current = current();
+        return Map.of("specializations", current.specializationLabels(), "languages", current.languageLabels());
+    }
+
+    // INDEX MAINTENANCE
+    private Snapshot current() {
+        if (!dirtyDoctors.isEmpty()) {
+            refreshDirty();
+        }
+        return snapshot;
+    }
+
+    // Full reload; covers rows written outside JPA
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.doctor-search.refresh-interval-ms:3600000}",
+            initialDelayString = "${app.doctor-search.refresh-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        dirtyDoctors.clear();
+        Map<Long, DoctorSearchResult> fresh = new HashMap<>();
+        jdbcTemplate.query(DOCTOR_SQL, rs -> {
+            DoctorSearchResult doctor = doctor(rs);
+            fresh.put(doctor.getDoctorId(), doctor);
+        });
+        entries.keySet().retainAll(fresh.keySet());
+        entries.putAll(fresh);
+        snapshot = Snapshot.of(entries.values());
+    }
+
+    private synchronized void refreshDirty() {
+        List<Long> doctorIds = new ArrayList<>(dirtyDoctors);
+        if (doctorIds.isEmpty()) {
+            return; // Another thread got here first
+        }
+        dirtyDoctors.removeAll(doctorIds);
+        for (Long doctorId : doctorIds) {
+            List<DoctorSearchResult> rows = jdbcTemplate.query(DOCTOR_SQL + " AND u.id = ?",
+                    (rs, row) -> doctor(rs), doctorId);
+            if (rows.isEmpty()) {
+                entries.remove(doctorId);
+            } else {
+                entries.put(doctorId, rows.get(0));
+            }
+        }
+        snapshot = Snapshot.of(entries.values());
+    }
+
+    private static DoctorSearchResult doctor(ResultSet rs) throws SQLException {
+        List<String> languages = new ArrayList<>();
+        String spoken = rs.getString(9);
+        if (spoken != null) {
+            for (String language : spoken.split(",")) {
+                if (!language.isBlank()) {
+                    languages.add(language.trim());
+                }
+            }
+        }
+        return DoctorSearchResult.builder()
+                .doctorId(rs.getLong(1))
+                .profileId(rs.getObject(2, Long.class))
+                .fullName(rs.getString(3))
+                .specialization(rs.getString(4))
+                .verified(rs.getBoolean(5))
+                .rating(rs.getObject(6, Double.class))
+                .yearsOfExperience(rs.getObject(7, Integer.class))
+                .consultationFee(rs.getObject(8, Double.class))
+                .languages(List.copyOf(languages))
+                .clinicAddress(rs.getString(10))
+                .availableHours(rs.getString(11))
+                .build();
+    }
+
+    private static String key(String term) {
+        return term == null ? "" : term.trim().toLowerCase();
+    }
+
+    // doctors is ordered by rating; every BitSet and array indexes into it.
+    // ratings holds NaN where the doctor has no rating (those sort last).
+    private record Snapshot(DoctorSearchResult[] doctors, FeeIndex fees, double[] ratings,
+            Map<String, BitSet> bySpecialization, Map<String, BitSet> byLanguage, BitSet verified,
+            List<String> specializationLabels, List<String> languageLabels) {
+
+        static final Snapshot EMPTY = new Snapshot(new DoctorSearchResult[0], FeeIndex.of(new double[0]),
+                new double[0], Map.of(), Map.of(), new BitSet(), List.of(), List.of());
+
+        // First position rated below minRating; everything before it qualifies
+        int ratedAtLeast(double minRating) {
+            int low = 0;
+            int high = ratings.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ratings[mid] >= minRating) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        static Snapshot of(Collection<DoctorSearchResult> source) {
+            List<DoctorSearchResult> ordered = new ArrayList<>(source);
+            ordered.sort(BY_RATING);
+
+            DoctorSearchResult[] doctors = new DoctorSearchResult[ordered.size()];
+            double[] fees = new double[doctors.length];
+            double[] ratings = new double[doctors.length];
+            Map<String, BitSet> bySpecialization = new HashMap<>();
+            Map<String, BitSet> byLanguage = new HashMap<>();
+            BitSet verified = new BitSet(doctors.length);
+            Map<String, String> specializationLabels = new HashMap<>();
+            Map<String, String> languageLabels = new HashMap<>();
+
+            for (int i = 0; i < doctors.length; i++) {
+                DoctorSearchResult doctor = ordered.get(i);
+                doctors[i] = doctor;
+                fees[i] = doctor.getConsultationFee() != null ? doctor.getConsultationFee() : Double.NaN;
+                ratings[i] = doctor.getRating() != null ? doctor.getRating() : Double.NaN;
+                if (doctor.isVerified()) {
+                    verified.set(i);
+                }
+                String specialization = key(doctor.getSpecialization());
+                if (!specialization.isEmpty()) {
+                    bySpecialization.computeIfAbsent(specialization, k -> new BitSet()).set(i);
+                    specializationLabels.putIfAbsent(specialization, doctor.getSpecialization().trim());
+                }
+                for (String language : doctor.getLanguages()) {
+                    byLanguage.computeIfAbsent(key(language), k -> new BitSet()).set(i);
+                    languageLabels.putIfAbsent(key(language), language);
+                }
+            }
+            return new Snapshot(doctors, FeeIndex.of(fees), ratings, bySpecialization, byLanguage, verified,
+                    sorted(specializationLabels.values()), sorted(languageLabels.values()));
+        }
+
+        private static List<String> sorted(Collection<String> labels) {
+            List<String> list = new ArrayList<>(labels);
+            list.sort(String.CASE_INSENSITIVE_ORDER);
+            return List.copyOf(list);
+        }
+    }
+
+    // Doctor positions ordered by fee (doctors without a fee left out), plus the set of
+    // the first k of them for every k that is a multiple of stride. A fee range is two
+    // binary searches, then prefix(end) minus prefix(start); each prefix is a stored set
+    // topped up with fewer than stride positions. About 64 stored sets whatever the size.
+    private record FeeIndex(int[] order, double[] sortedFees, BitSet[] prefixes, int stride) {
+
+        static FeeIndex of(double[] fees) {
+            List<Integer> positions = new ArrayList<>(fees.length);
+            for (int i = 0; i < fees.length; i++) {
+                if (!Double.isNaN(fees[i])) {
+                    positions.add(i);
+                }
+            }
+            positions.sort(Comparator.comparingDouble(i -> fees[i]));
+
+            int[] order = new int[positions.size()];
+            double[] sortedFees = new double[order.length];
+            int stride = Math.max(256, (order.length + 63) / 64);
+            BitSet[] prefixes = new BitSet[order.length / stride + 1];
+            BitSet running = new BitSet(fees.length);
+            for (int k = 0; k < order.length; k++) {
+                if (k % stride == 0) {
+                    prefixes[k / stride] = (BitSet) running.clone();
+                }
+                order[k] = positions.get(k);
+                sortedFees[k] = fees[order[k]];
+                running.set(order[k]);
+            }
+            if (order.length % stride == 0) {
+                prefixes[order.length / stride] = running;
+            }
+            return new FeeIndex(order, sortedFees, prefixes, stride);
+        }
+
+        // Positions with low <= fee <= high
+        BitSet between(double low, double high) {
+            int start = firstAbove(low, false);
+            int end = firstAbove(high, true);
+            if (start >= end) {
+                return new BitSet();
+            }
+            BitSet range = prefix(end);
+            if (start > 0) {
+                range.andNot(prefix(start));
+            }
+            return range;
+        }
+
+        // First index whose fee is >= bound, or > bound when inclusive
+        private int firstAbove(double bound, boolean inclusive) {
+            int low = 0;
+            int high = sortedFees.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedFees[mid] < bound || (inclusive && sortedFees[mid] == bound)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private BitSet prefix(int k) {
+            int bucket = k / stride;
+            BitSet prefix = (BitSet) prefixes[bucket].clone();
+            for (int j = bucket * stride; j < k; j++) {
+                prefix.set(order[j]);
+            }
+            return prefix;
+        }
+    }
+
+    // HIBERNATE EVENTS
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    private void markDirty(Object entity) {
+        if (entity instanceof DoctorProfile profile && profile.getUser() != null) {
+            dirtyDoctors.add(profile.getUser().getId());
+        } else if (entity instanceof User user && user.getId() != null
+                && (user.getRole() == Role.DOCTOR || entries.containsKey(user.getId()))) {
+            dirtyDoctors.add(user.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == DoctorProfile.class || type == User.class;
+    }
+}
@@ -1,40 +1,45 @@
 package com.health.diagnosis.service;
 
+import com.health.diagnosis.dto.DoctorRecommendation;
+import com.health.diagnosis.dto.DoctorSearchPage;
+import com.health.diagnosis.dto.PatientRosterPage;
 import com.health.diagnosis.entity.DoctorProfile;
 import com.health.diagnosis.repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
-    private final com.health.diagnosis.repository.AppointmentRepository appointmentRepository;
+    private final PatientRosterService patientRosterService;
+    private final DoctorRecommendationService doctorRecommendationService;
+    private final DoctorSearchIndex doctorSearchIndex;
 
     public List<DoctorProfile> getAllDoctors() {
         return doctorRepository.findAll();
     }
 
-    public List<DoctorProfile> recommendDoctors(String riskLevel) {
-        // Simple logic:
-        // High Risk -> Psychiatrist
-        // Medium/Low Risk -> Therapist
+    public DoctorSearchPage searchDoctors(String specialization, String language, Double minFee, Double maxFee,
+            Double minRating, boolean verifiedOnly, int page, int size) {
+        return doctorSearchIndex.search(specialization, language, minFee, maxFee, minRating, verifiedOnly, page,
+                size);
+    }
 
-        String targetSpecialization = "Therapist";
-        if ("High".equalsIgnoreCase(riskLevel)) {
-            targetSpecialization = "Psychiatrist";
-        }
+    public Map<String, List<String>> getSearchFacets() {
+        return doctorSearchIndex.facets();
+    }
 
-        return doctorRepository.findBySpecialization(targetSpecialization);
+    // Top-ranked doctors for the risk level, from the in-memory ranking
+    public List<DoctorRecommendation> recommendDoctors(String riskLevel, int limit) {
+        return doctorRecommendationService.recommend(riskLevel, limit);
     }
 
-    public List<com.health.diagnosis.entity.User> getMyPatients(com.health.diagnosis.entity.User doctor) {
-        return appointmentRepository.findByDoctor(doctor).stream()
-                .map(com.health.diagnosis.entity.Appointment::getPatient)
-                .distinct()
-                .collect(java.util.stream.Collectors.toList());
+    public PatientRosterPage getMyPatients(com.health.diagnosis.entity.User doctor, int page, int size) {
+        return patientRosterService.getPage(doctor.getId(), page, size);
     }
 }
@@ -0,0 +1,133 @@
+package com.health.diagnosis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Objects as plain files under <dir>/objects/<first 2 chars of key>/<key>, so
+// no directory grows past a few thousand entries. Point app.attachments.dir at
+// shared storage when running more than one instance. Small files are served
+// from an LRU of memory-mapped buffers: a hot image is read from the page
+// cache without a syscall per request. Larger files go through transferTo.
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "local", matchIfMissing = true)
+public class LocalAttachmentStorage implements AttachmentStorage {
+
+    private final Path objectsDir;
+    private final long mmapMaxBytes;
+    private final Map<String, MappedByteBuffer> mapped;
+
+    public LocalAttachmentStorage(@Value("${app.attachments.dir:uploads/chat}") String dir,
+            @Value("${app.attachments.local.mmap-max-bytes:262144}") long mmapMaxBytes,
+            @Value("${app.attachments.local.mmap-cache-entries:512}") int mmapCacheEntries) {
+        this.objectsDir = Paths.get(dir, "objects").toAbsolutePath();
+        this.mmapMaxBytes = mmapMaxBytes;
+        // Access-ordered, so the eldest entry is the least recently served
+        this.mapped = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MappedByteBuffer> eldest) {
+                return size() > mmapCacheEntries;
+            }
+        });
+    }
+
+    @Override
+    public boolean put(String key, Path source) throws IOException {
+        Path target = path(key);
+        if (Files.exists(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staging is on another filesystem: copy beside the target, then rename
+            Path temp = Files.createTempFile(target.getParent(), key, ".part");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(path(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        Path file = path(key);
+        return Files.isRegularFile(file) ? Files.size(file) : -1;
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public void transferTo(String key, long offset, long count, WritableByteChannel target) throws IOException {
+        Path file = path(key);
+        if (Files.size(file) <= mmapMaxBytes) {
+            ByteBuffer buffer = map(key, file).duplicate();
+            buffer.position((int) offset).limit((int) (offset + count));
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            long position = offset;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Objects never change, so a mapping stays valid for as long as it is cached
+    private MappedByteBuffer map(String key, Path file) throws IOException {
+        MappedByteBuffer buffer = mapped.get(key);
+        if (buffer == null) {
+            try (FileChannel channel = FileChannel.open(file)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mapped.put(key, buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(path(key));
+    }
+
+    private Path path(String key) {
+        if (key.length() < 2 || key.contains("/") || key.contains("\\") || key.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return objectsDir.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
@@ -0,0 +1,267 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.Diagnosis;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.enums.Role;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admin totals kept up to date from Hibernate post-commit events on User,
+// Appointment and Diagnosis, so the admin dashboard reads them in O(1).
+// Writes that bypass the session (bulk/JDBC) are picked up by the periodic
+// reconciliation, which recounts everything from the database.
+@Service
+public class MetricsRollup implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retainedDays;
+
+    private volatile Totals totals = new Totals();
+
+    public MetricsRollup(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+            @Value("${app.metrics.retained-days:90}") int retainedDays) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retainedDays = retainedDays;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    // RECONCILIATION
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.metrics.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.metrics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Totals fresh = new Totals();
+        jdbcTemplate.query("SELECT role, COUNT(*) FROM users GROUP BY role",
+                rs -> {
+                    fresh.usersByRole.get(Role.valueOf(rs.getString(1))).set(rs.getLong(2));
+                });
+        jdbcTemplate.query("SELECT status, COUNT(*) FROM appointments GROUP BY status",
+                rs -> {
+                    fresh.appointmentsByStatus.get(AppointmentStatus.valueOf(rs.getString(1))).set(rs.getLong(2));
+                });
+        jdbcTemplate.query("SELECT risk_level, COUNT(*) FROM diagnoses WHERE risk_level IS NOT NULL GROUP BY risk_level",
+                rs -> {
+                    fresh.diagnosesByRisk.put(rs.getString(1), new AtomicLong(rs.getLong(2)));
+                });
+        jdbcTemplate.query("SELECT CAST(created_at AS DATE), COUNT(*) FROM appointments "
+                + "WHERE created_at >= ? GROUP BY CAST(created_at AS DATE)",
+                rs -> {
+                    fresh.bookingsPerDay.put(rs.getDate(1).toLocalDate(), new AtomicLong(rs.getLong(2)));
+                },
+                LocalDate.now().minusDays(retainedDays).atStartOfDay());
+        totals = fresh;
+    }
+
+    // READS
+    public Map<String, Object> snapshot() {
+        Totals current = totals;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("usersByRole", toLongs(current.usersByRole));
+        snapshot.put("totalUsers", sum(current.usersByRole));
+        snapshot.put("appointmentsByStatus", toLongs(current.appointmentsByStatus));
+        snapshot.put("totalAppointments", sum(current.appointmentsByStatus));
+        snapshot.put("diagnosesByRisk", toLongs(current.diagnosesByRisk));
+        return snapshot;
+    }
+
+    public long countUsers(Role role) {
+        return totals.usersByRole.get(role).get();
+    }
+
+    public long totalUsers() {
+        return sum(totals.usersByRole);
+    }
+
+    public long totalAppointments() {
+        return sum(totals.appointmentsByStatus);
+    }
+
+    // One point per day, oldest first, including days without bookings
+    public List<Map<String, Object>> bookingsPerDay(int days) {
+        NavigableMap<LocalDate, AtomicLong> perDay = totals.bookingsPerDay;
+        List<Map<String, Object>> series = new ArrayList<>(days);
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(days - 1L); !day.isAfter(today); day = day.plusDays(1)) {
+            AtomicLong count = perDay.get(day);
+            series.add(Map.of("date", day.toString(), "bookings", count != null ? count.get() : 0L));
+        }
+        return series;
+    }
+
+    // Diagnoses written with JDBC batches (no Hibernate events fire for those)
+    public void diagnosesInserted(Map<String, Long> countsByRisk) {
+        Totals current = totals;
+        countsByRisk.forEach((riskLevel, count) -> riskDelta(current, riskLevel, count));
+    }
+
+    // HIBERNATE EVENTS
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Totals current = totals;
+        Object entity = event.getEntity();
+        if (entity instanceof User user) {
+            current.usersByRole.get(user.getRole()).incrementAndGet();
+        } else if (entity instanceof Appointment appointment) {
+            current.appointmentsByStatus.get(appointment.getStatus()).incrementAndGet();
+            bookingDay(current, appointment.getCreatedAt(), 1);
+        } else if (entity instanceof Diagnosis diagnosis) {
+            riskDelta(current, diagnosis.getRiskLevel(), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            return;
+        }
+        Totals current = totals;
+        Object entity = event.getEntity();
+        if (entity instanceof User) {
+            Role before = (Role) property(event.getPersister(), oldState, "role");
+            Role after = (Role) property(event.getPersister(), event.getState(), "role");
+            if (before != null && after != null && before != after) {
+                current.usersByRole.get(before).decrementAndGet();
+                current.usersByRole.get(after).incrementAndGet();
+            }
+        } else if (entity instanceof Appointment) {
+            AppointmentStatus before = (AppointmentStatus) property(event.getPersister(), oldState, "status");
+            AppointmentStatus after = (AppointmentStatus) property(event.getPersister(), event.getState(), "status");
+            if (before != null && after != null && before != after) {
+                current.appointmentsByStatus.get(before).decrementAndGet();
+                current.appointmentsByStatus.get(after).incrementAndGet();
+            }
+        } else if (entity instanceof Diagnosis) {
+            String before = (String) property(event.getPersister(), oldState, "riskLevel");
+            String after = (String) property(event.getPersister(), event.getState(), "riskLevel");
+            if (!Objects.equals(before, after)) {
+                riskDelta(current, before, -1);
+                riskDelta(current, after, 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Totals current = totals;
+        Object entity = event.getEntity();
+        if (entity instanceof User user) {
+            current.usersByRole.get(user.getRole()).decrementAndGet();
+        } else if (entity instanceof Appointment appointment) {
+            current.appointmentsByStatus.get(appointment.getStatus()).decrementAndGet();
+            bookingDay(current, appointment.getCreatedAt(), -1);
+        } else if (entity instanceof Diagnosis diagnosis) {
+            riskDelta(current, diagnosis.getRiskLevel(), -1);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == User.class || type == Appointment.class || type == Diagnosis.class;
+    }
+
+    private static Object property(EntityPersister persister, Object[] state, String name) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return state[i];
+            }
+        }
+        return null;
+    }
+
+    private static void riskDelta(Totals current, String riskLevel, long delta) {
+        if (riskLevel != null) {
+            current.diagnosesByRisk.computeIfAbsent(riskLevel, risk -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private void bookingDay(Totals current, LocalDateTime createdAt, long delta) {
+        if (createdAt != null) {
+            current.bookingsPerDay.computeIfAbsent(createdAt.toLocalDate(), day -> new AtomicLong()).addAndGet(delta);
+            current.bookingsPerDay.headMap(LocalDate.now().minusDays(retainedDays)).clear();
+        }
+    }
+
+    private static long sum(Map<?, AtomicLong> counters) {
+        return counters.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    private static <K> Map<K, Long> toLongs(Map<K, AtomicLong> counters) {
+        Map<K, Long> values = new LinkedHashMap<>();
+        counters.forEach((key, value) -> values.put(key, value.get()));
+        return values;
+    }
+
+    private static class Totals {
+        final Map<Role, AtomicLong> usersByRole = new EnumMap<>(Role.class);
+        final Map<AppointmentStatus, AtomicLong> appointmentsByStatus = new EnumMap<>(AppointmentStatus.class);
+        final Map<String, AtomicLong> diagnosesByRisk = new ConcurrentHashMap<>();
+        final NavigableMap<LocalDate, AtomicLong> bookingsPerDay = new ConcurrentSkipListMap<>();
+
+        Totals() {
+            for (Role role : Role.values()) {
+                usersByRole.put(role, new AtomicLong());
+            }
+            for (AppointmentStatus status : AppointmentStatus.values()) {
+                appointmentsByStatus.put(status, new AtomicLong());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.UnreadCountMessage;
+import com.health.diagnosis.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-user unread notification counters. Loaded for every user with one
+// GROUP BY query at startup, then maintained by NotificationService. Each
+// change is pushed to /topic/notifications/{userId} so clients don't poll.
+// Only notifications created on this instance are counted; with several
+// instances the counts drift until restart.
+@Service
+@RequiredArgsConstructor
+public class NotificationCounterStore {
+
+    private final NotificationRepository notificationRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // ConcurrentHashMap locks per bin, so updates for different users don't contend
+    private final Map<Long, AtomicLong> unread = new ConcurrentHashMap<>();
+    private volatile boolean reconciled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+        for (Object[] row : notificationRepository.countUnreadGroupedByUser()) {
+            counts.put((Long) row[0], new AtomicLong((Long) row[1]));
+        }
+        unread.clear();
+        unread.putAll(counts);
+        reconciled = true;
+    }
+
+    public long get(Long userId) {
+        AtomicLong counter = unread.get(userId);
+        if (counter != null) {
+            return counter.get();
+        }
+        if (!reconciled) {
+            return notificationRepository.countUnreadByUserId(userId);
+        }
+        return 0;
+    }
+
+    public void increment(Long userId) {
+        long count = unread.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        publish(userId, count);
+    }
+
+    public void decrement(Long userId, int read) {
+        AtomicLong counter = unread.get(userId);
+        if (counter != null) {
+            publish(userId, counter.accumulateAndGet(read, (current, delta) -> Math.max(0, current - delta)));
+        }
+    }
+
+    public void reset(Long userId) {
+        AtomicLong previous = unread.remove(userId);
+        if (previous != null && previous.get() > 0) {
+            publish(userId, 0);
+        }
+    }
+
+    private void publish(Long userId, long count) {
+        messagingTemplate.convertAndSend("/topic/notifications/" + userId, new UnreadCountMessage(count));
+    }
+}
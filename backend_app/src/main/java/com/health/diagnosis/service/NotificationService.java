@@ -15,6 +15,7 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationCounterStore notificationCounterStore;
 
     public Notification createNotification(User user, Notification.NotificationType type,
             String title, String message, Long relatedEntityId) {
@@ -29,8 +30,9 @@ public class NotificationService {
 
         notification = notificationRepository.save(notification);
 
-        // Send real-time notification via WebSocket
+        // Send real-time notification via WebSocket, followed by the new badge count
         messagingTemplate.convertAndSend("/topic/notifications/" + user.getId(), notification);
+        notificationCounterStore.increment(user.getId());
 
         return notification;
     }
@@ -40,19 +42,19 @@ public class NotificationService {
     }
 
     public Long getUnreadCount(User user) {
-        return notificationRepository.countByUserAndIsReadFalse(user);
+        return notificationCounterStore.get(user.getId());
     }
 
     public void markAsRead(Long notificationId) {
-        notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setIsRead(true);
-            notificationRepository.save(notification);
+        notificationRepository.findUserIdById(notificationId).ifPresent(userId -> {
+            if (notificationRepository.markReadById(notificationId) > 0) {
+                notificationCounterStore.decrement(userId, 1);
+            }
         });
     }
 
     public void markAllAsRead(User user) {
-        List<Notification> notifications = notificationRepository.findByUserOrderByCreatedAtDesc(user);
-        notifications.forEach(n -> n.setIsRead(true));
-        notificationRepository.saveAll(notifications);
+        notificationRepository.markAllReadByUser(user);
+        notificationCounterStore.reset(user.getId());
     }
 }
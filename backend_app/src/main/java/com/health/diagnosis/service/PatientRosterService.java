@@ -0,0 +1,128 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.PatientRosterEntry;
+import com.health.diagnosis.dto.PatientRosterPage;
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.repository.AppointmentRepository;
+import com.health.diagnosis.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// A doctor's patients, built from one GROUP BY over the doctor's appointments
+// (patient id, count, last date) and cached per doctor. Bookings update the
+// cached roster in place; other appointment edits drop it. Contact details and
+// latest risk are read per page, so profile edits and new assessments never
+// leave the cache stale.
+@Service
+public class PatientRosterService {
+
+    private static final int MAX_CACHED_DOCTORS = 1_000;
+
+    private static final Comparator<RosterRow> MOST_RECENT_FIRST = Comparator
+            .comparing(RosterRow::lastAppointment, Comparator.reverseOrder())
+            .thenComparing(RosterRow::patientId);
+
+    private final AppointmentRepository appointmentRepository;
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+
+    private final Map<Long, Roster> cache = new ConcurrentHashMap<>();
+
+    public PatientRosterService(AppointmentRepository appointmentRepository, UserRepository userRepository,
+            @Value("${app.roster.cache-ttl-ms:300000}") long ttlMillis) {
+        this.appointmentRepository = appointmentRepository;
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // page is zero-based
+    public PatientRosterPage getPage(Long doctorId, int page, int size) {
+        List<RosterRow> rows = roster(doctorId).rows();
+        int from = (int) Math.min((long) page * size, rows.size());
+        List<RosterRow> slice = rows.subList(from, Math.min(from + size, rows.size()));
+
+        List<PatientRosterEntry> patients = new ArrayList<>(slice.size());
+        if (!slice.isEmpty()) {
+            Map<Long, PatientRosterEntry> details = userRepository
+                    .findRosterEntries(slice.stream().map(RosterRow::patientId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(PatientRosterEntry::getPatientId, Function.identity()));
+            for (RosterRow row : slice) {
+                PatientRosterEntry entry = details.get(row.patientId());
+                if (entry != null) { // Skip patients deleted since the roster was built
+                    entry.setAppointmentCount(row.appointments());
+                    entry.setLastAppointmentDate(row.lastAppointment());
+                    patients.add(entry);
+                }
+            }
+        }
+
+        return PatientRosterPage.builder()
+                .patients(patients)
+                .page(page)
+                .size(size)
+                .totalElements(rows.size())
+                .totalPages((rows.size() + size - 1) / size)
+                .build();
+    }
+
+    private Roster roster(Long doctorId) {
+        long now = System.currentTimeMillis();
+        Roster cached = cache.get(doctorId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached;
+        }
+
+        List<RosterRow> rows = new ArrayList<>();
+        for (Object[] row : appointmentRepository.findPatientRoster(doctorId)) {
+            rows.add(new RosterRow((Long) row[0], ((Number) row[1]).longValue(), (LocalDate) row[2]));
+        }
+        Roster roster = new Roster(List.copyOf(rows), now + ttlMillis);
+        if (cache.size() >= MAX_CACHED_DOCTORS) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        }
+        cache.put(doctorId, roster);
+        return roster;
+    }
+
+    // Called after an appointment is saved; only touches rosters that are already cached
+    public void recordBooking(Appointment appointment) {
+        Long patientId = appointment.getPatient().getId();
+        LocalDate date = appointment.getAppointmentDate();
+        cache.computeIfPresent(appointment.getDoctor().getId(), (doctorId, roster) -> {
+            List<RosterRow> rows = new ArrayList<>(roster.rows().size() + 1);
+            RosterRow updated = new RosterRow(patientId, 1, date);
+            for (RosterRow row : roster.rows()) {
+                if (row.patientId().equals(patientId)) {
+                    updated = new RosterRow(patientId, row.appointments() + 1,
+                            date.isAfter(row.lastAppointment()) ? date : row.lastAppointment());
+                } else {
+                    rows.add(row);
+                }
+            }
+            rows.add(updated);
+            rows.sort(MOST_RECENT_FIRST);
+            return new Roster(List.copyOf(rows), roster.expiresAt());
+        });
+    }
+
+    // Rescheduled or deleted appointments: rebuild on next read
+    public void evict(Long doctorId) {
+        cache.remove(doctorId);
+    }
+
+    private record RosterRow(Long patientId, long appointments, LocalDate lastAppointment) {
+    }
+
+    private record Roster(List<RosterRow> rows, long expiresAt) {
+    }
+}
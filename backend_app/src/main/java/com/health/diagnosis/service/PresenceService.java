@@ -0,0 +1,152 @@
+package com.health.diagnosis.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// In-memory presence registry. Heartbeats and WebSocket sessions only touch the
+// maps below; last_seen is written back to the users table in periodic batches.
+// Presence is per instance: in relay mode a user connected to another node
+// looks offline here.
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    // Clients subscribe to their own per-user topics, which identifies the session owner
+    private static final Pattern USER_TOPIC = Pattern.compile("^/topic/(?:messages|notifications|video|video-call)/(\\d+)$");
+    private static final long ONLINE_WINDOW_MS = 2 * 60 * 1000; // Online if active within last 2 minutes
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.presence.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, Long> lastSeenMillis = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> dirty = new ConcurrentHashMap<>();
+    private final Map<String, Long> sessionOwners = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> openSessions = new ConcurrentHashMap<>();
+
+    // After startup, not in bean init, so a large users table does not hold up the context.
+    // Users seen since the app came up keep their newer in-memory time.
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLastSeen() {
+        jdbcTemplate.query("SELECT id, last_seen FROM users WHERE last_seen IS NOT NULL",
+                rs -> {
+                    lastSeenMillis.merge(rs.getLong(1), rs.getTimestamp(2).getTime(), Math::max);
+                });
+    }
+
+    public void heartbeat(Long userId) {
+        touch(userId);
+    }
+
+    public boolean isOnline(Long userId) {
+        if (openSessions.containsKey(userId)) {
+            return true;
+        }
+        Long seen = lastSeenMillis.get(userId);
+        return seen != null && System.currentTimeMillis() - seen < ONLINE_WINDOW_MS;
+    }
+
+    public Map<String, Object> getStatus(Long userId) {
+        Long seen = lastSeenMillis.get(userId);
+        return Map.of(
+                "isOnline", isOnline(userId),
+                "lastSeen", seen != null ? toLocalDateTime(seen).toString() : "Never");
+    }
+
+    public Map<Long, Map<String, Object>> getStatuses(List<Long> userIds) {
+        Map<Long, Map<String, Object>> statuses = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            statuses.put(userId, getStatus(userId));
+        }
+        return statuses;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        String sessionId = accessor.getSessionId();
+        if (destination == null || sessionId == null) {
+            return;
+        }
+        Matcher matcher = USER_TOPIC.matcher(destination);
+        if (matcher.matches()) {
+            Long userId = Long.valueOf(matcher.group(1));
+            if (sessionOwners.putIfAbsent(sessionId, userId) == null) {
+                openSessions.merge(userId, 1, Integer::sum);
+            }
+            touch(userId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Long userId = sessionOwners.remove(event.getSessionId());
+        if (userId != null) {
+            openSessions.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+            touch(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flush-interval-ms:15000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(dirty.size(), flushBatchSize));
+        for (Long userId : dirty.keySet()) {
+            dirty.remove(userId);
+            Long seen = lastSeenMillis.get(userId);
+            if (seen != null) {
+                batch.add(new Object[] { new Timestamp(seen), userId });
+            }
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        writeBatch(batch);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE users SET last_seen = ? WHERE id = ?", batch);
+        }
+    }
+
+    private void touch(Long userId) {
+        lastSeenMillis.put(userId, System.currentTimeMillis());
+        dirty.put(userId, Boolean.TRUE);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
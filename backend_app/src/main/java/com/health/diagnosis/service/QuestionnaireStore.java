@@ -0,0 +1,128 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.Question;
+import com.health.diagnosis.repository.QuestionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The assessment questionnaire as an immutable snapshot. Patients read and are
+// scored against the snapshot; the question table is only queried again when
+// an admin changes a question, and the new snapshot replaces the old one in a
+// single volatile write.
+@Service
+@RequiredArgsConstructor
+public class QuestionnaireStore {
+
+    private final QuestionRepository questionRepository;
+    private final ScoringModel scoringModel;
+
+    private final AtomicLong versions = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    public synchronized Snapshot reload() {
+        List<Question> questions = new ArrayList<>();
+        Map<Long, Double> weights = new HashMap<>();
+        for (Question question : questionRepository.findAll()) {
+            // Detached copies, so edits to managed entities never leak into a published snapshot
+            questions.add(Question.builder()
+                    .id(question.getId())
+                    .text(question.getText())
+                    .category(question.getCategory())
+                    .build());
+            weights.put(question.getId(), scoringModel.weightOf(question.getCategory()));
+        }
+        questions.sort(Comparator.comparing(Question::getId));
+        Snapshot fresh = new Snapshot(versions.incrementAndGet(), contentHash(questions),
+                List.copyOf(questions), Map.copyOf(weights));
+        snapshot = fresh;
+        return fresh;
+    }
+
+    // Same questions give the same hash on every node and across restarts, unlike the version counter
+    private static String contentHash(List<Question> questions) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+        for (Question question : questions) {
+            digest.update((question.getId() + "\0" + question.getText() + "\0"
+                    + question.getCategory() + "\0").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // weights maps question id -> category weight, precomputed at load;
+    // contentHash covers what patients see and is used as the HTTP ETag
+    public record Snapshot(long version, String contentHash, List<Question> questions, Map<Long, Double> weights) {
+
+        public int size() {
+            return questions.size();
+        }
+
+        public boolean contains(Long questionId) {
+            return weights.containsKey(questionId);
+        }
+
+        // Every question answered, nothing unknown or out of range
+        public void validate(Map<Long, Integer> answers) {
+            List<Long> unknown = new ArrayList<>();
+            int answeredQuestions = 0;
+            for (Map.Entry<Long, Integer> answer : answers.entrySet()) {
+                if (!contains(answer.getKey())) {
+                    unknown.add(answer.getKey());
+                    continue;
+                }
+                Integer value = answer.getValue();
+                if (value == null || value < ScoringModel.MIN_ANSWER || value > ScoringModel.MAX_ANSWER) {
+                    throw new IllegalArgumentException(String.format(
+                            "Answer for question %d must be between %d and %d",
+                            answer.getKey(), ScoringModel.MIN_ANSWER, ScoringModel.MAX_ANSWER));
+                }
+                answeredQuestions++;
+            }
+
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Unknown questions: " + unknown
+                        + ". The questionnaire has changed, please reload it.");
+            }
+            if (answeredQuestions < size()) {
+                throw new IllegalArgumentException(
+                        String.format("Incomplete assessment: %d/%d questions answered. Please answer all questions.",
+                                answeredQuestions, size()));
+            }
+        }
+
+        public int score(Map<Long, Integer> answers) {
+            double total = 0;
+            for (Map.Entry<Long, Integer> answer : answers.entrySet()) {
+                total += weights.getOrDefault(answer.getKey(), 0.0) * answer.getValue();
+            }
+            return (int) Math.round(total);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.health.diagnosis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+// Objects in an S3-compatible bucket (AWS, MinIO, Ceph RGW...). Requests are
+// signed with SigV4 over java.net.http, with path-style addressing
+// (<endpoint>/<bucket>/<prefix><key>), so a local MinIO works as a drop-in
+// stand-in. Payloads are sent as UNSIGNED-PAYLOAD. Uploads are already
+// verified against their SHA-256 before they get here.
+@Service
+@ConditionalOnProperty(name = "app.attachments.storage", havingValue = "s3")
+public class S3AttachmentStorage implements AttachmentStorage {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String SIGNED_HEADERS = "host;x-amz-content-sha256;x-amz-date";
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String prefix;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+
+    public S3AttachmentStorage(@Value("${app.attachments.s3.endpoint}") String endpoint,
+            @Value("${app.attachments.s3.bucket}") String bucket,
+            @Value("${app.attachments.s3.region:us-east-1}") String region,
+            @Value("${app.attachments.s3.prefix:chat/}") String prefix,
+            @Value("${app.attachments.s3.access-key}") String accessKey,
+            @Value("${app.attachments.s3.secret-key}") String secretKey,
+            @Value("${app.attachments.s3.timeout-ms:30000}") long timeoutMs) {
+        this.endpoint = URI.create(endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.prefix = prefix;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public boolean put(String key, Path source) throws IOException {
+        if (exists(key)) {
+            return false;
+        }
+        HttpResponse<String> response = send(request("PUT", key, HttpRequest.BodyPublishers.ofFile(source)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 PUT " + key + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return size(key) >= 0;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", key, HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return -1;
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 HEAD " + key + " failed: " + response.statusCode());
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return get(request("GET", key, HttpRequest.BodyPublishers.noBody()), key);
+    }
+
+    @Override
+    public void transferTo(String key, long offset, long count, WritableByteChannel target) throws IOException {
+        HttpRequest.Builder request = request("GET", key, HttpRequest.BodyPublishers.noBody())
+                .header("Range", "bytes=" + offset + "-" + (offset + count - 1));
+        try (InputStream in = get(request, key)) {
+            in.transferTo(Channels.newOutputStream(target)); // Not closed: the caller owns target
+        }
+    }
+
+    private InputStream get(HttpRequest.Builder request, String key) throws IOException {
+        HttpResponse<InputStream> response = send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() / 100 == 2) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw new IOException("S3 GET " + key + " failed: " + response.statusCode());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return http.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted talking to S3", e);
+        }
+    }
+
+    // SIGV4
+    private HttpRequest.Builder request(String method, String key, HttpRequest.BodyPublisher body) {
+        String path = "/" + bucket + "/" + encodePath(prefix + key);
+        URI uri = endpoint.resolve(path);
+        String amzDate = AMZ_DATE.format(Instant.now());
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+
+        String canonicalRequest = method + "\n"
+                + path + "\n"
+                + "\n" // No query string
+                + "host:" + hostHeader(uri) + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n"
+                + "\n"
+                + SIGNED_HEADERS + "\n"
+                + UNSIGNED_PAYLOAD;
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(method, body)
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + SIGNED_HEADERS + ", Signature=" + signature);
+    }
+
+    // Must match the Host header HttpClient sends: the port only when it is not the default
+    private static String hostHeader(URI uri) {
+        int defaultPort = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return uri.getPort() == -1 || uri.getPort() == defaultPort ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    // RFC 3986 unreserved characters pass through; '/' separates segments
+    private static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder(path.length());
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static byte[] sha256(String data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.health.diagnosis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Assessment scoring settings: a weight per question category and the score
+// cut-offs between Low, Medium and High risk. With no weights configured every
+// answer counts once, which matches the original plain sum.
+@Component
+public class ScoringModel {
+
+    public static final int MIN_ANSWER = 0;
+    public static final int MAX_ANSWER = 3;
+
+    private final Map<String, Double> categoryWeights;
+    private final double defaultWeight;
+    private final int lowMaxScore;
+    private final int mediumMaxScore;
+
+    public ScoringModel(@Value("${app.assessment.category-weights:}") String categoryWeights,
+            @Value("${app.assessment.default-weight:1.0}") double defaultWeight,
+            @Value("${app.assessment.low-max-score:5}") int lowMaxScore,
+            @Value("${app.assessment.medium-max-score:15}") int mediumMaxScore) {
+        if (lowMaxScore >= mediumMaxScore) {
+            throw new IllegalArgumentException("app.assessment.low-max-score must be below medium-max-score");
+        }
+        this.categoryWeights = parseWeights(categoryWeights);
+        this.defaultWeight = defaultWeight;
+        this.lowMaxScore = lowMaxScore;
+        this.mediumMaxScore = mediumMaxScore;
+    }
+
+    public double weightOf(String category) {
+        return category == null ? defaultWeight
+                : categoryWeights.getOrDefault(category.toLowerCase(), defaultWeight);
+    }
+
+    public String riskLevel(int totalScore) {
+        if (totalScore <= lowMaxScore) {
+            return "Low";
+        } else if (totalScore <= mediumMaxScore) {
+            return "Medium";
+        }
+        return "High";
+    }
+
+    // "Depression:1.5,Severe:2" -> {depression=1.5, severe=2.0}
+    private static Map<String, Double> parseWeights(String spec) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid category weight: " + entry.trim());
+            }
+            weights.put(entry.substring(0, colon).trim().toLowerCase(),
+                    Double.parseDouble(entry.substring(colon + 1).trim()));
+        }
+        return Map.copyOf(weights);
+    }
+}
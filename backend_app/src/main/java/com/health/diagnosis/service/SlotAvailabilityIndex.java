@@ -0,0 +1,204 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.TimeSlots;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Booked slots per doctor and day as a 64-bit mask, one bit per 30-minute cell
+// of the day. Availability reads and double-booking checks are a single
+// compare-and-set, no query. A doctor's future appointments are loaded the
+// first time that doctor is touched (or all at once when the app is ready),
+// then kept in sync by the book/cancel/status paths.
+// The index is per instance and only a hint: a slot freed on another instance
+// still looks taken here until BookingService checks the database and reloads
+// that day. The database stays the source of truth.
+@Service
+public class SlotAvailabilityIndex {
+
+    public static final int CELL_MINUTES = 30;
+    private static final int CELLS_PER_DAY = 24 * 60 / CELL_MINUTES;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<DayKey, AtomicLong> days = new ConcurrentHashMap<>();
+    private final Set<Long> loadedDoctors = ConcurrentHashMap.newKeySet();
+    private final Object loadLock = new Object();
+    private volatile boolean warmed;
+
+    public SlotAvailabilityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // LOADING
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        synchronized (loadLock) {
+            // Doctors already loaded lazily are skipped, their cells may have moved on since
+            Set<Long> skip = Set.copyOf(loadedDoctors);
+            jdbcTemplate.query("SELECT doctor_id, appointment_date, slot_start, slot_end FROM appointments "
+                    + "WHERE status <> 'CANCELLED' AND appointment_date >= ? AND slot_start IS NOT NULL",
+                    rs -> {
+                        long doctorId = rs.getLong(1);
+                        if (!skip.contains(doctorId)) {
+                            merge(doctorId, rs.getDate(2).toLocalDate(), mask(rs.getInt(3), rs.getInt(4)));
+                        }
+                    },
+                    LocalDate.now());
+            warmed = true;
+        }
+    }
+
+    private void ensureLoaded(Long doctorId) {
+        if (warmed || loadedDoctors.contains(doctorId)) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (warmed || loadedDoctors.contains(doctorId)) {
+                return;
+            }
+            jdbcTemplate.query("SELECT appointment_date, slot_start, slot_end FROM appointments "
+                    + "WHERE doctor_id = ? AND status <> 'CANCELLED' AND appointment_date >= ? AND slot_start IS NOT NULL",
+                    rs -> {
+                        merge(doctorId, rs.getDate(1).toLocalDate(), mask(rs.getInt(2), rs.getInt(3)));
+                    },
+                    doctorId, LocalDate.now());
+            loadedDoctors.add(doctorId);
+        }
+    }
+
+    // Replaces one doctor-day with what the database holds, e.g. once another instance has freed a slot
+    public void reload(Long doctorId, LocalDate date) {
+        ensureLoaded(doctorId);
+        long mask = 0L;
+        for (int[] range : jdbcTemplate.query("SELECT slot_start, slot_end FROM appointments "
+                + "WHERE doctor_id = ? AND appointment_date = ? AND status <> 'CANCELLED' AND slot_start IS NOT NULL",
+                (rs, rowNum) -> new int[] { rs.getInt(1), rs.getInt(2) }, doctorId, date)) {
+            mask |= mask(range[0], range[1]);
+        }
+        days.computeIfAbsent(new DayKey(doctorId, date), key -> new AtomicLong()).set(mask);
+    }
+
+    private void merge(Long doctorId, LocalDate date, long mask) {
+        days.computeIfAbsent(new DayKey(doctorId, date), key -> new AtomicLong()).accumulateAndGet(mask,
+                (current, bits) -> current | bits);
+    }
+
+    // Past days can no longer be booked
+    @Scheduled(cron = "0 5 0 * * *")
+    public void prune() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+    }
+
+    // BOOKING
+    // Claims every cell of the slot, or none of them if any is already taken.
+    // A free-text slot has no cells, so it always passes and the database decides.
+    public boolean tryReserve(Long doctorId, LocalDate date, String timeSlot) {
+        long mask = maskOf(timeSlot);
+        if (mask == 0) {
+            return true;
+        }
+        ensureLoaded(doctorId);
+        AtomicLong day = days.computeIfAbsent(new DayKey(doctorId, date), key -> new AtomicLong());
+        while (true) {
+            long current = day.get();
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (day.compareAndSet(current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(Long doctorId, LocalDate date, String timeSlot) {
+        long mask = maskOf(timeSlot);
+        if (mask == 0) {
+            return;
+        }
+        ensureLoaded(doctorId);
+        AtomicLong day = days.get(new DayKey(doctorId, date));
+        if (day != null) {
+            day.accumulateAndGet(mask, (current, bits) -> current & ~bits);
+        }
+    }
+
+    // READS
+    public List<String> bookedSlots(Long doctorId, LocalDate date) {
+        return labels(bookedMask(doctorId, date));
+    }
+
+    // Booked slots for each day in [from, from + days)
+    public Map<LocalDate, List<String>> bookedSlots(Long doctorId, LocalDate from, int dayCount) {
+        Map<LocalDate, List<String>> range = new LinkedHashMap<>();
+        for (int i = 0; i < dayCount; i++) {
+            LocalDate date = from.plusDays(i);
+            range.put(date, bookedSlots(doctorId, date));
+        }
+        return range;
+    }
+
+    // Number of booked 30-minute cells over [from, from + days)
+    public int bookedCells(Long doctorId, LocalDate from, int dayCount) {
+        int cells = 0;
+        for (int i = 0; i < dayCount; i++) {
+            cells += Long.bitCount(bookedMask(doctorId, from.plusDays(i)));
+        }
+        return cells;
+    }
+
+    private long bookedMask(Long doctorId, LocalDate date) {
+        ensureLoaded(doctorId);
+        AtomicLong day = days.get(new DayKey(doctorId, date));
+        return day != null ? day.get() : 0L;
+    }
+
+    // SLOT MASKS
+    // "10:00 AM - 10:30 AM" -> bits for the cells it covers; 0 for a missing or free-text slot,
+    // which the index knows nothing about (same rule as Appointment's slot_start derivation)
+    public static long maskOf(String timeSlot) {
+        try {
+            int[] range = TimeSlots.parse(timeSlot);
+            return mask(range[0], range[1]);
+        } catch (IllegalArgumentException e) {
+            return 0L;
+        }
+    }
+
+    public static long mask(int startMinute, int endMinute) {
+        int first = startMinute / CELL_MINUTES;
+        int last = Math.min((endMinute + CELL_MINUTES - 1) / CELL_MINUTES, CELLS_PER_DAY);
+        long mask = 0L;
+        for (int cell = first; cell < last; cell++) {
+            mask |= 1L << cell;
+        }
+        return mask;
+    }
+
+    // Same format the booking page uses, e.g. "2:00 PM - 2:30 PM"
+    private static List<String> labels(long mask) {
+        List<String> labels = new ArrayList<>(Long.bitCount(mask));
+        for (int cell = 0; cell < CELLS_PER_DAY; cell++) {
+            if ((mask & (1L << cell)) != 0) {
+                int start = cell * CELL_MINUTES;
+                labels.add(TimeSlots.label(start, start + CELL_MINUTES));
+            }
+        }
+        return labels;
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+}
@@ -0,0 +1,225 @@
+package com.health.diagnosis.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JPEG previews for image attachments, stored beside the original under
+// <hash>.thumb.jpg in the same AttachmentStorage. Uploads queue a job on a
+// small fixed pool; when the queue is full the job is dropped and the preview
+// is made on first request instead.
+// Large photos are decoded with source subsampling so a 12 MP image never
+// needs a full-resolution raster just to produce a 320 px preview.
+@Service
+public class ThumbnailService {
+
+    private final AttachmentStore attachmentStore;
+    private final AttachmentStorage storage;
+    private final int maxEdge;
+    private final long maxPixels;
+    private final float quality;
+    private final ThreadPoolExecutor workers;
+
+    // One job per hash, shared by the upload and any request waiting on it
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    public ThumbnailService(AttachmentStore attachmentStore, AttachmentStorage storage,
+            @Value("${app.thumbnails.max-edge:320}") int maxEdge,
+            @Value("${app.thumbnails.max-source-pixels:50000000}") long maxPixels,
+            @Value("${app.thumbnails.jpeg-quality:0.8}") float quality,
+            @Value("${app.thumbnails.threads:2}") int threads,
+            @Value("${app.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this.attachmentStore = attachmentStore;
+        this.storage = storage;
+        this.maxEdge = maxEdge;
+        this.maxPixels = maxPixels;
+        this.quality = quality;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1); // Keep request threads ahead of previews
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        ImageIO.setUseCache(false); // Decode in memory rather than through temp files
+    }
+
+    public static boolean isImage(String contentType) {
+        return contentType != null && contentType.startsWith("image/")
+                && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    // Fire and forget after an upload; the worker skips hashes that already have a preview
+    public void schedule(String hash) {
+        submit(hash);
+    }
+
+    // Storage key of the preview, waiting up to timeoutMs for it to be generated
+    public Optional<String> thumbnail(String hash, long timeoutMs) throws IOException {
+        String key = AttachmentStore.thumbnailKey(hash);
+        if (storage.exists(key)) {
+            return Optional.of(key);
+        }
+        CompletableFuture<Boolean> job = submit(hash);
+        try {
+            if (job == null) {
+                job = CompletableFuture.completedFuture(generate(hash)); // Pool saturated: do it inline
+            }
+            return job.get(timeoutMs, TimeUnit.MILLISECONDS) ? Optional.of(key) : Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            return Optional.empty();
+        }
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    // null when the queue is full
+    private CompletableFuture<Boolean> submit(String hash) {
+        CompletableFuture<Boolean> job = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(hash, job);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    job.complete(generate(hash));
+                } catch (Throwable t) {
+                    job.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(hash, job);
+                }
+            });
+            return job;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash, job);
+            return null;
+        }
+    }
+
+    // GENERATION
+    // false when the source cannot be decoded or is too large to try
+    private boolean generate(String hash) {
+        String key = AttachmentStore.thumbnailKey(hash);
+        try {
+            if (storage.exists(key)) {
+                return true;
+            }
+            BufferedImage decoded = decode(hash);
+            if (decoded == null) {
+                return false;
+            }
+            Path temp = attachmentStore.createStagingFile();
+            try {
+                writeJpeg(scale(decoded), temp);
+                storage.put(key, temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Thumbnail failed for " + hash + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private BufferedImage decode(String hash) throws IOException {
+        Optional<Path> local = storage.localPath(hash);
+        try (InputStream remote = local.isPresent() ? null : storage.open(hash);
+             ImageInputStream in = ImageIO.createImageInputStream(local.isPresent() ? local.get().toFile() : remote)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null; // Refuse decompression bombs
+                }
+                // Read every n-th pixel so the raster is at most ~2x the preview, then smooth the rest
+                int step = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE); // JPEG has no alpha; flatten transparent PNGs onto white
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,54 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.repository.ChatMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Unread chat counters kept in memory so badge lookups don't run COUNT queries.
+// A counter is loaded from the database the first time it is read (after the
+// pair's queued messages have been written) and then incremented by new
+// messages. Mark-as-read drops the counter rather than zeroing it, so a message
+// sent while the UPDATE runs is not lost; the next read reloads it.
+// Counters are per instance and only see messages sent through it; with
+// several instances a counter is corrected when mark-read drops it.
+// Notification counters live in NotificationCounterStore.
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterService {
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatPersistencePipeline chatPersistencePipeline;
+
+    private final Map<ChatPair, AtomicLong> chatUnread = new ConcurrentHashMap<>();
+
+    // CHAT (messages from sender to recipient that the recipient hasn't read)
+    public long getChatUnread(Long senderId, Long recipientId) {
+        ChatPair pair = new ChatPair(senderId, recipientId);
+        AtomicLong counter = chatUnread.get(pair);
+        if (counter == null) {
+            chatPersistencePipeline.awaitPersisted(senderId, recipientId);
+            counter = chatUnread.computeIfAbsent(pair, key -> new AtomicLong(chatMessageRepository
+                    .countBySenderIdAndRecipientIdAndIsReadFalse(senderId, recipientId)));
+        }
+        return counter.get();
+    }
+
+    // computeIfPresent waits for a load in progress, so the new message is counted either way
+    public void chatMessageSent(Long senderId, Long recipientId) {
+        chatUnread.computeIfPresent(new ChatPair(senderId, recipientId), (pair, counter) -> {
+            counter.incrementAndGet();
+            return counter;
+        });
+    }
+
+    public void chatMarkedRead(Long senderId, Long recipientId) {
+        chatUnread.remove(new ChatPair(senderId, recipientId));
+    }
+
+    private record ChatPair(Long senderId, Long recipientId) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.health.diagnosis.config;
+
+import com.health.diagnosis.ExpertHealthDiagnosisApplication;
+import com.health.diagnosis.dto.BrokerDestinationStats;
+import com.health.diagnosis.service.BrokerMetrics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application nodes in relay mode sharing one database, with the embedded
+// STOMP broker running on node A. A client on one node must receive what is
+// published through the other, for chat and for video signaling.
+class BrokerRelayMultiNodeTest {
+
+    private static final long TIMEOUT_SECONDS = 20;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static WebSocketStompClient stompClient;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int brokerPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            brokerPort = socket.getLocalPort();
+        }
+        nodeA = node("a", brokerPort, true);
+        nodeB = node("b", brokerPort, false);
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setTaskScheduler(scheduler); // Receipt tracking
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext node(String name, int brokerPort, boolean embeddedBroker) {
+        // Command-line arguments, so they override application.properties
+        return new SpringApplicationBuilder(ExpertHealthDiagnosisApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:multinode;DB_CLOSE_DELAY=-1",
+                        "--app.chat.pipeline.journal=target/test-data/node-" + name + "/chat-journal.log",
+                        "--app.attachments.dir=target/test-data/node-" + name + "/uploads",
+                        "--app.websocket.broker=relay",
+                        "--app.websocket.relay.port=" + brokerPort,
+                        "--app.websocket.embedded-broker.enabled=" + embeddedBroker,
+                        "--app.websocket.embedded-broker.port=" + brokerPort);
+    }
+
+    @Test
+    void chatMessageSentOnOneNodeReachesSubscriberOnTheOther() throws Exception {
+        long recipientId = 900_001;
+        StompSession sender = connect(nodeA);
+        StompSession receiver = connect(nodeB);
+        BlockingQueue<String> received = subscribe(receiver, "/topic/messages/" + recipientId);
+
+        send(sender, "/app/chat", "{\"senderId\":900000,\"recipientId\":" + recipientId
+                + ",\"senderName\":\"node a\",\"content\":\"hello from node a\"}");
+
+        String frame = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(frame).as("message relayed to node b").contains("hello from node a");
+
+        assertThat(stats(nodeA, "/topic/messages/{id}").getPublished()).isPositive();
+        assertThat(stats(nodeB, "/topic/messages/{id}").getDelivered()).isPositive();
+        sender.disconnect();
+        receiver.disconnect();
+    }
+
+    @Test
+    void videoSignalSentOnOneNodeReachesSubscriberOnTheOther() throws Exception {
+        StompSession caller = connect(nodeB);
+        StompSession callee = connect(nodeA);
+        BlockingQueue<String> received = subscribe(callee, "/topic/video/900011");
+
+        send(caller, "/app/video/signal", "{\"type\":\"offer\",\"senderId\":900010,\"recipientId\":900011,"
+                + "\"data\":\"sdp from node b\"}");
+
+        String frame = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(frame).as("signal relayed to node a").contains("sdp from node b");
+        caller.disconnect();
+        callee.disconnect();
+    }
+
+    // The relay's own broker connection comes up asynchronously, so retry the first CONNECT
+    private static StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        String url = "ws://localhost:" + port + "/ws-chat/websocket";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (true) {
+            try {
+                return stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+                }).get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    // Waits for the broker's receipt so the subscription is in place before anything is sent
+    private static BlockingQueue<String> subscribe(StompSession session, String destination) throws Exception {
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        BlockingQueue<Boolean> receipt = new LinkedBlockingQueue<>();
+        session.setAutoReceipt(true);
+        StompSession.Subscription subscription = session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                frames.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        });
+        subscription.addReceiptTask(() -> receipt.add(true));
+        assertThat(receipt.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).as("subscription receipt").isTrue();
+        return frames;
+    }
+
+    private static void send(StompSession session, String destination, String json) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        session.send(headers, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BrokerDestinationStats stats(ConfigurableApplicationContext node, String destination) {
+        return node.getBean(BrokerMetrics.class).snapshot().getDestinations().stream()
+                .filter(stats -> stats.getDestination().equals(destination))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no traffic recorded for " + destination));
+    }
+}
@@ -0,0 +1,94 @@
+package com.health.diagnosis.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Token validation throughput: the original per-call path (decode the secret,
+// build a parser, parse the token three times) against the shared parser with
+// and without the verified-token cache. Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+class JwtServiceBenchmark {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final int TOKENS = 256;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long ROUND_MS = 1000;
+
+    private final UserDetails user = User.withUsername("bench@test.local").password("unused").roles("PATIENT").build();
+
+    @Test
+    void compareValidationThroughput() {
+        JwtService uncached = new JwtService(0);
+        JwtService cached = new JwtService(1024);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(cached.generateToken(user));
+        }
+
+        double original = measure("original (parser per call, 3 parses)", tokens, this::originalIsTokenValid);
+        double shared = measure("shared parser, 1 parse", tokens, token -> uncached.isTokenValid(token, user));
+        double memoized = measure("shared parser + verified cache", tokens, token -> cached.isTokenValid(token, user));
+
+        System.out.printf("JWT validation: shared %.1fx, cached %.1fx the original%n",
+                shared / original, memoized / original);
+        assertThat(shared).isGreaterThan(original);
+        assertThat(memoized).isGreaterThan(shared);
+    }
+
+    // ops/s over the measured rounds, after warm-up rounds for the JIT
+    private static double measure(String name, List<String> tokens, Predicate<String> validate) {
+        long ops = 0;
+        long nanos = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long roundOps = 0;
+            long start = System.nanoTime();
+            long deadline = start + ROUND_MS * 1_000_000;
+            while (System.nanoTime() < deadline) {
+                for (String token : tokens) {
+                    if (!validate.test(token)) {
+                        throw new AssertionError("Token rejected");
+                    }
+                }
+                roundOps += tokens.size();
+            }
+            if (round >= WARMUP_ROUNDS) {
+                ops += roundOps;
+                nanos += System.nanoTime() - start;
+            }
+        }
+        double perSecond = ops * 1e9 / nanos;
+        System.out.printf("JWT validation, %-40s %,12.0f ops/s%n", name + ":", perSecond);
+        return perSecond;
+    }
+
+    // The filter's extractUsername + isTokenValid as they were before the key and parser were shared
+    private boolean originalIsTokenValid(String token) {
+        if (!user.getUsername().equals(originalClaims(token).getSubject())) {
+            return false;
+        }
+        String username = originalClaims(token).getSubject();
+        return username.equals(user.getUsername()) && !originalClaims(token).getExpiration().before(new Date());
+    }
+
+    private static Claims originalClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,233 @@
+package com.health.diagnosis.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.diagnosis.service.BrokerMetrics;
+import com.health.diagnosis.support.IntegrationTest;
+import com.health.diagnosis.support.LatencyRecorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// STOMP load generator: opens many SockJS/STOMP sessions, subscribes each to
+// its own /topic/video/{id}, then one publisher fans a burst of signals out to
+// all of them per round through /app/video/signal. An unrecorded warm-up
+// round first proves every subscription is live (the simple broker sends no
+// RECEIPT for SUBSCRIBE). Delivery latency is
+// measured client side (send and receive are both in this JVM), so it also
+// works against a remote server.
+//
+//   mvn test -Pbenchmarks -Dtest=StompLoadBenchmark                      (embedded server)
+//   mvn test -Pbenchmarks -Dtest=StompLoadBenchmark -Dload.url=http://host:8080/ws-chat
+//
+// -Dload.sessions (default 10000) and -Dload.rounds (default 5) size the run.
+// Against the embedded server both socket ends live in this JVM, so the
+// session count is capped to fit the open-file limit. Sessions whose handshake
+// fails are counted and left out; the rounds run over the ones that connected.
+@Tag("benchmark")
+@IntegrationTest
+class StompLoadBenchmark {
+
+    private static final int CONNECTS_IN_FLIGHT = 100;
+    private static final long ROUND_TIMEOUT_SECONDS = 60;
+    private static final long FIRST_RECIPIENT = 5_000_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BrokerMetrics brokerMetrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void deliveryLatencyUnderFanOut() throws Exception {
+        String remote = System.getProperty("load.url");
+        String url = remote != null ? remote : "http://localhost:" + port + "/ws-chat";
+        int sessions = Integer.getInteger("load.sessions", 10_000);
+        int rounds = Integer.getInteger("load.rounds", 5);
+        if (remote == null) {
+            sessions = Math.min(sessions, sessionsThatFit());
+        }
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.initialize();
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setTaskScheduler(scheduler);
+        client.setDefaultHeartbeat(new long[] {0, 0});
+
+        LatencyRecorder latencies = new LatencyRecorder(sessions * rounds);
+        AtomicInteger received = new AtomicInteger();
+        List<Subscriber> subscribers = new ArrayList<>(sessions);
+        try {
+            long start = System.nanoTime();
+            subscribers.addAll(connectAll(client, url, sessions, latencies, received));
+            System.out.printf("STOMP load: %,d/%,d sessions connected in %.1f s (%s)%n",
+                    subscribers.size(), sessions, (System.nanoTime() - start) / 1e9, url);
+            assertThat(subscribers).as("connected sessions").isNotEmpty();
+
+            StompSession publisher = connect(client, url);
+            for (int round = 0; round <= rounds; round++) {
+                long roundStart = System.nanoTime();
+                int delivered = burst(publisher, subscribers, received);
+                if (round == 0) {
+                    assertThat(delivered).as("warm-up deliveries").isEqualTo(subscribers.size());
+                    synchronized (latencies) {
+                        latencies.clear();
+                    }
+                    received.set(0);
+                    continue;
+                }
+                System.out.printf("STOMP load round %d: %,d/%,d delivered in %.0f ms%n", round, delivered,
+                        subscribers.size(), (System.nanoTime() - roundStart) / 1e6);
+            }
+            publisher.disconnect();
+        } finally {
+            subscribers.forEach(subscriber -> subscriber.session().disconnect());
+            client.stop();
+            scheduler.shutdown();
+        }
+
+        synchronized (latencies) {
+            System.out.println("STOMP load delivery latency: " + latencies.summary());
+        }
+        if (remote == null) {
+            System.out.println("STOMP load: slow consumers evicted " + brokerMetrics.snapshot().getSlowConsumersEvicted());
+        }
+        assertThat(received.get()).as("messages delivered").isEqualTo(subscribers.size() * rounds);
+    }
+
+    // One signal to every session; returns how many arrived before the round timed out
+    private static int burst(StompSession publisher, List<Subscriber> subscribers, AtomicInteger received)
+            throws InterruptedException {
+        int before = received.get();
+        for (Subscriber subscriber : subscribers) {
+            send(publisher, subscriber.recipient());
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ROUND_TIMEOUT_SECONDS);
+        while (received.get() - before < subscribers.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return received.get() - before;
+    }
+
+    // Two descriptors per session (client and server end), with headroom for the rest of the app
+    private static int sessionsThatFit() {
+        if (ManagementFactory.getOperatingSystemMXBean()
+                instanceof com.sun.management.UnixOperatingSystemMXBean os) {
+            long limit = os.getMaxFileDescriptorCount();
+            int fit = (int) Math.max(100, (limit - 2_000) / 2);
+            if (fit < Integer.getInteger("load.sessions", 10_000)) {
+                System.out.printf("STOMP load: open-file limit %,d allows about %,d in-process sessions%n", limit,
+                        fit);
+            }
+            return fit;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private List<Subscriber> connectAll(WebSocketStompClient client, String url, int sessions,
+            LatencyRecorder latencies, AtomicInteger received) throws Exception {
+        Semaphore inFlight = new Semaphore(CONNECTS_IN_FLIGHT);
+        List<CompletableFuture<StompSession>> pending = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            long recipient = FIRST_RECIPIENT + i;
+            inFlight.acquire();
+            if (i > 0 && i % 1_000 == 0) {
+                System.out.printf("STOMP load: %,d sessions started%n", i);
+            }
+            CompletableFuture<StompSession> future = client.connectAsync(url, new StompSessionHandlerAdapter() {
+            });
+            pending.add(future.whenComplete((session, error) -> {
+                inFlight.release();
+                if (session != null) {
+                    session.subscribe("/topic/video/" + recipient, handler(latencies, received));
+                }
+            }));
+        }
+        List<Subscriber> connected = new ArrayList<>(sessions);
+        int failed = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                connected.add(new Subscriber(pending.get(i).get(ROUND_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                        FIRST_RECIPIENT + i));
+            } catch (ExecutionException | TimeoutException e) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.err.printf("STOMP load: %,d handshakes failed or timed out%n", failed);
+        }
+        return connected;
+    }
+
+    private StompFrameHandler handler(LatencyRecorder latencies, AtomicInteger received) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                long now = System.nanoTime();
+                try {
+                    JsonNode signal = objectMapper.readTree((byte[]) payload);
+                    long elapsed = now - signal.get("data").asLong();
+                    synchronized (latencies) {
+                        latencies.record(elapsed);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                received.incrementAndGet();
+            }
+        };
+    }
+
+    private static StompSession connect(WebSocketStompClient client, String url) throws Exception {
+        return client.connectAsync(url, new StompSessionHandlerAdapter() {
+        }).get(ROUND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // The send time rides in the signal's data field
+    private static void send(StompSession publisher, long recipient) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination("/app/video/signal");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        String json = "{\"type\":\"Candidate\",\"senderId\":1,\"recipientId\":" + recipient
+                + ",\"data\":" + System.nanoTime() + "}";
+        publisher.send(headers, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Subscriber(StompSession session, long recipient) {
+    }
+}
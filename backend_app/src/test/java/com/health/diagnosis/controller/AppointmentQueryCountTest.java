@@ -0,0 +1,145 @@
+package com.health.diagnosis.controller;
+
+import com.health.diagnosis.config.JwtService;
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.AppointmentRepository;
+import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.support.IntegrationTest;
+import com.health.diagnosis.support.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.health.diagnosis.support.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// N+1 guard for the appointment list endpoints: the number of statements a
+// request prepares must not depend on how many appointments it returns.
+// Each endpoint is measured with one appointment and again with twelve, each
+// with a different doctor, and must stay within a fixed budget both times.
+@IntegrationTest
+class AppointmentQueryCountTest {
+
+    private static final int EXTRA_APPOINTMENTS = 11;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private User patient;
+    private User doctor;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        String run = Long.toString(System.nanoTime());
+        patient = userRepository.save(user("qc-patient-" + run, Role.PATIENT));
+        doctor = userRepository.save(user("qc-doctor-" + run, Role.DOCTOR));
+        admin = userRepository.save(user("qc-admin-" + run, Role.ADMIN));
+        appointmentRepository.save(appointment(patient, doctor, LocalDate.now().plusDays(1), AppointmentStatus.PENDING));
+    }
+
+    @Test
+    void patientListsUseOneQueryRegardlessOfSize() throws Exception {
+        List<String> endpoints = List.of("/api/appointments/my-appointments", "/api/appointments/upcoming",
+                "/api/appointments/past", "/api/appointments/cancelled");
+        assertStableQueryCounts(patient, endpoints, 1, this::addPatientAppointments);
+    }
+
+    @Test
+    void doctorListsUseOneQueryRegardlessOfSize() throws Exception {
+        List<String> endpoints = List.of("/api/appointments/my-appointments", "/api/appointments/upcoming",
+                "/api/appointments/past", "/api/appointments/cancelled");
+        assertStableQueryCounts(doctor, endpoints, 1, this::addDoctorAppointments);
+    }
+
+    @Test
+    void adminAppointmentPagesUseAFixedNumberOfQueries() throws Exception {
+        // First page: rows + total; later pages: rows only
+        List<String> endpoints = List.of("/api/admin/appointments?size=50&patientId=" + patient.getId(),
+                "/api/admin/appointments?size=50&doctorId=" + doctor.getId());
+        assertStableQueryCounts(admin, endpoints, 2, this::addDoctorAppointments);
+    }
+
+    private void assertStableQueryCounts(User user, List<String> endpoints, int budget, Runnable grow)
+            throws Exception {
+        String token = jwtService.generateToken(user);
+        List<List<String>> before = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            before.add(statements(endpoint, token));
+        }
+        grow.run();
+        for (int i = 0; i < endpoints.size(); i++) {
+            List<String> after = statements(endpoints.get(i), token);
+            assertThat(after).as("statements for %s with %d more appointments", endpoints.get(i), EXTRA_APPOINTMENTS)
+                    .isNotEmpty()
+                    .hasSize(before.get(i).size())
+                    .hasSizeLessThanOrEqualTo(budget);
+        }
+    }
+
+    // Statements for one request, after a warm-up call so the JWT filter's principal lookup is cached
+    private List<String> statements(String endpoint, String token) throws Exception {
+        mockMvc.perform(get(endpoint).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        QueryCounter.start();
+        try {
+            mockMvc.perform(get(endpoint).header("Authorization", "Bearer " + token)).andExpect(status().isOk());
+        } catch (Exception | AssertionError e) {
+            QueryCounter.stop();
+            throw e;
+        }
+        return QueryCounter.stop();
+    }
+
+    // Upcoming, past and cancelled, each with its own doctor
+    private void addPatientAppointments() {
+        for (int i = 0; i < EXTRA_APPOINTMENTS; i++) {
+            User other = userRepository.save(user("qc-doctor-" + System.nanoTime(), Role.DOCTOR));
+            appointmentRepository.save(appointment(patient, other, dateFor(i), statusFor(i)));
+        }
+    }
+
+    // Same mix, each with its own patient
+    private void addDoctorAppointments() {
+        for (int i = 0; i < EXTRA_APPOINTMENTS; i++) {
+            User other = userRepository.save(user("qc-patient-" + System.nanoTime(), Role.PATIENT));
+            appointmentRepository.save(appointment(other, doctor, dateFor(i), statusFor(i)));
+        }
+    }
+
+    private static LocalDate dateFor(int i) {
+        return i % 3 == 1 ? LocalDate.now().minusDays(i + 1) : LocalDate.now().plusDays(i + 2);
+    }
+
+    private static AppointmentStatus statusFor(int i) {
+        return i % 3 == 2 ? AppointmentStatus.CANCELLED : AppointmentStatus.CONFIRMED;
+    }
+
+    private static Appointment appointment(User patient, User doctor, LocalDate date, AppointmentStatus status) {
+        return Appointment.builder()
+                .patient(patient)
+                .doctor(doctor)
+                .appointmentDate(date)
+                .timeSlot("10:00 AM - 10:30 AM")
+                .status(status)
+                .build();
+    }
+}
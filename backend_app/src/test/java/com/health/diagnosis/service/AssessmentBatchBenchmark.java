@@ -0,0 +1,86 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.AssessmentBatchResult;
+import com.health.diagnosis.entity.Question;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.support.IntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+
+import static com.health.diagnosis.support.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Batch upload throughput: 10,000 submissions (the max-items limit) spread
+// over 500 patients, ingested end to end from the raw JSON bytes.
+// Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+@IntegrationTest
+class AssessmentBatchBenchmark {
+
+    private static final int PATIENTS = 500;
+    private static final int ITEMS = 10_000;
+    private static final int WARMUP_UPLOADS = 2;
+    private static final int MEASURED_UPLOADS = 5;
+
+    @Autowired
+    private AssessmentBatchService assessmentBatchService;
+
+    @Autowired
+    private QuestionnaireStore questionnaireStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void batchIngestionThroughput() throws IOException {
+        List<User> patients = new ArrayList<>(PATIENTS);
+        String run = Long.toString(System.nanoTime());
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(user("batch-bench-" + run + "-" + i, Role.PATIENT));
+        }
+        patients = userRepository.saveAll(patients);
+        byte[] body = upload(patients);
+        System.out.printf("Assessment batch: %,d submissions, %,d KB per upload%n", ITEMS, body.length / 1024);
+
+        long items = 0;
+        long nanos = 0;
+        for (int i = 0; i < WARMUP_UPLOADS + MEASURED_UPLOADS; i++) {
+            long start = System.nanoTime();
+            AssessmentBatchResult result = assessmentBatchService.ingest(new ByteArrayInputStream(body));
+            long elapsed = System.nanoTime() - start;
+            assertThat(result.getAccepted()).isEqualTo(ITEMS);
+            if (i >= WARMUP_UPLOADS) {
+                items += result.getAccepted();
+                nanos += elapsed;
+                System.out.printf("Assessment batch upload %d: %.0f ms%n", i - WARMUP_UPLOADS + 1, elapsed / 1e6);
+            }
+        }
+        System.out.printf("Assessment batch: %,.0f submissions/s over %d uploads (%d cores)%n",
+                items * 1e9 / nanos, MEASURED_UPLOADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    private byte[] upload(List<User> patients) {
+        List<Question> questions = questionnaireStore.current().questions();
+        Random random = new Random(42);
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < ITEMS; i++) {
+            StringJoiner answers = new StringJoiner(",", "{", "}");
+            for (Question question : questions) {
+                answers.add("\"" + question.getId() + "\":" + random.nextInt(ScoringModel.MAX_ANSWER + 1));
+            }
+            body.add("{\"patientId\":" + patients.get(i % patients.size()).getId() + ",\"answers\":" + answers + "}");
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.AssessmentBatchResult;
+import com.health.diagnosis.entity.Question;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+import static com.health.diagnosis.support.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The batch upload is all-or-nothing for failures of the upload itself, so a
+// kiosk can resend after an error without duplicating rows
+@IntegrationTest
+class AssessmentBatchServiceTest {
+
+    private static final int ITEMS = 1_200; // More than two chunks
+    private static final int MAX_ITEMS = 10_000; // app.assessment.batch.max-items default
+
+    @Autowired
+    private AssessmentBatchService assessmentBatchService;
+
+    @Autowired
+    private QuestionnaireStore questionnaireStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User patient;
+
+    @BeforeEach
+    void setUp() {
+        String name = "batch-patient-" + System.nanoTime();
+        patient = userRepository.save(user(name, Role.PATIENT));
+    }
+
+    @Test
+    void truncatedUploadStoresNothing() {
+        String body = upload(ITEMS);
+        byte[] truncated = body.substring(0, body.length() - 40).getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> assessmentBatchService.ingest(new ByteArrayInputStream(truncated)))
+                .isInstanceOfAny(IOException.class, IllegalArgumentException.class);
+        assertThat(storedDiagnoses()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM diagnosis_summaries WHERE user_id = ?",
+                Integer.class, patient.getId())).isZero();
+    }
+
+    @Test
+    void resentUploadIsStoredOnce() throws IOException {
+        byte[] body = upload(ITEMS).getBytes(StandardCharsets.UTF_8);
+        byte[] truncated = new String(body, StandardCharsets.UTF_8).substring(0, body.length / 2)
+                .getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> assessmentBatchService.ingest(new ByteArrayInputStream(truncated)))
+                .isInstanceOfAny(IOException.class, IllegalArgumentException.class);
+
+        AssessmentBatchResult result = assessmentBatchService.ingest(new ByteArrayInputStream(body));
+
+        assertThat(result.getAccepted()).isEqualTo(ITEMS);
+        assertThat(result.getRejected()).isZero();
+        assertThat(storedDiagnoses()).isEqualTo(ITEMS);
+        assertThat(jdbcTemplate.queryForObject("SELECT assessment_count FROM diagnosis_summaries WHERE user_id = ?",
+                Integer.class, patient.getId())).isEqualTo(ITEMS);
+    }
+
+    @Test
+    void uploadOverTheLimitIsRefusedWithoutReadingTheRest() {
+        byte[] upload = upload(2 * MAX_ITEMS).getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream body = new ByteArrayInputStream(upload);
+
+        assertThatThrownBy(() -> assessmentBatchService.ingest(body))
+                .isInstanceOf(AssessmentBatchService.TooLargeException.class);
+        assertThat(storedDiagnoses()).isZero();
+        // The second half of the upload is never read
+        assertThat(body.available()).isGreaterThan(upload.length / 3);
+    }
+
+    private int storedDiagnoses() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM diagnoses WHERE user_id = ?", Integer.class,
+                patient.getId());
+    }
+
+    private String upload(int items) {
+        StringJoiner answers = new StringJoiner(",", "{", "}");
+        for (Question question : questionnaireStore.current().questions()) {
+            answers.add("\"" + question.getId() + "\":1");
+        }
+        String submission = "{\"patientId\":" + patient.getId() + ",\"answers\":" + answers + "}";
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < items; i++) {
+            body.add(submission);
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.Appointment;
+import com.health.diagnosis.entity.TimeSlots;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.AppointmentRepository;
+import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.health.diagnosis.support.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Contention test for the booking engine: many clients race for the same
+// doctor's slots, on one instance and on two instances sharing the database
+// (a second BookingService with its own SlotAvailabilityIndex).
+@IntegrationTest
+class BookingServiceTest {
+
+    private static final int CLIENTS = 64;
+    private static final int SLOTS = 16; // 9:00 AM to 5:00 PM
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PatientRosterService patientRosterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User doctor;
+    private List<User> patients;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        String run = Long.toString(System.nanoTime());
+        doctor = userRepository.save(user("doctor-" + run, Role.DOCTOR));
+        patients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            patients.add(userRepository.save(user("patient-" + run + "-" + i, Role.PATIENT)));
+        }
+        date = LocalDate.now().plusDays(30);
+    }
+
+    @Test
+    void concurrentBookingsHaveOneWinnerPerSlot() throws Exception {
+        Result result = race(List.of(bookingService));
+
+        assertThat(result.booked()).isEqualTo(SLOTS);
+        assertThat(activeBookings()).isEqualTo(SLOTS);
+        result.report("single instance");
+    }
+
+    @Test
+    void concurrentBookingsAcrossInstancesHaveOneWinnerPerSlot() throws Exception {
+        Result result = race(List.of(bookingService, secondInstance()));
+
+        assertThat(result.booked()).isEqualTo(SLOTS);
+        assertThat(activeBookings()).isEqualTo(SLOTS);
+        result.report("two instances");
+    }
+
+    @Test
+    void slotCancelledOnAnotherInstanceCanBeBookedAgain() {
+        BookingService other = secondInstance();
+        String slot = slot(0);
+        Appointment first = bookingService.book(appointment(patients.get(0), slot));
+        assertThatThrownBy(() -> other.book(appointment(patients.get(1), slot)))
+                .isInstanceOf(BookingService.SlotTakenException.class);
+
+        bookingService.changeStatus(first, AppointmentStatus.CANCELLED);
+
+        // The other instance still has the slot marked in its index
+        Appointment second = other.book(appointment(patients.get(1), slot));
+        assertThat(second.getId()).isNotNull();
+        assertThatThrownBy(() -> other.book(appointment(patients.get(2), slot)))
+                .isInstanceOf(BookingService.SlotTakenException.class);
+    }
+
+    @Test
+    void otherIntegrityViolationsAreNotReportedAsSlotTaken() {
+        Appointment missingSlot = appointment(patients.get(0), null);
+
+        assertThatThrownBy(() -> bookingService.book(missingSlot))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .isNotInstanceOf(BookingService.SlotTakenException.class);
+    }
+
+    // Every client tries every slot in its own random order; instances take turns by client
+    private Result race(List<BookingService> instances) throws Exception {
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicLong maxLatencyNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                BookingService instance = instances.get(i % instances.size());
+                User patient = patients.get(i);
+                futures.add(clients.submit(() -> {
+                    List<Integer> order = new ArrayList<>();
+                    for (int s = 0; s < SLOTS; s++) {
+                        order.add(s);
+                    }
+                    Collections.shuffle(order, ThreadLocalRandom.current());
+                    start.await();
+                    for (int s : order) {
+                        long began = System.nanoTime();
+                        try {
+                            instance.book(appointment(patient, slot(s)));
+                            booked.incrementAndGet();
+                        } catch (BookingService.SlotTakenException e) {
+                            conflicts.incrementAndGet();
+                        }
+                        maxLatencyNanos.accumulateAndGet(System.nanoTime() - began, Math::max);
+                    }
+                    return null;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Result(booked.get(), conflicts.get(), System.nanoTime() - began, maxLatencyNanos.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private BookingService secondInstance() {
+        return new BookingService(appointmentRepository, new SlotAvailabilityIndex(jdbcTemplate),
+                patientRosterService, 64);
+    }
+
+    private long activeBookings() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments WHERE doctor_id = ? "
+                + "AND appointment_date = ? AND status <> 'CANCELLED'", Long.class, doctor.getId(), date);
+    }
+
+    private Appointment appointment(User patient, String slot) {
+        return Appointment.builder()
+                .patient(patient)
+                .doctor(doctor)
+                .appointmentDate(date)
+                .timeSlot(slot)
+                .status(AppointmentStatus.PENDING)
+                .build();
+    }
+
+    private static String slot(int index) {
+        int start = 9 * 60 + index * 30;
+        return TimeSlots.label(start, start + 30);
+    }
+
+    private record Result(int booked, int conflicts, long elapsedNanos, long maxLatencyNanos) {
+
+        void report(String label) {
+            int attempts = booked + conflicts;
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("Booking contention (%s, %d clients): %d attempts in %.0f ms, %.0f attempts/s, "
+                    + "%d booked, %.1f%% conflicts, max latency %.1f ms%n", label, CLIENTS, attempts,
+                    seconds * 1000, attempts / seconds, booked, 100.0 * conflicts / attempts, maxLatencyNanos / 1e6);
+        }
+    }
+}
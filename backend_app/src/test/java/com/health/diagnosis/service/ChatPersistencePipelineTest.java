@@ -0,0 +1,185 @@
+package com.health.diagnosis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.diagnosis.entity.ChatMessage;
+import com.health.diagnosis.support.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs its own pipeline (small segments, scratch journal) against the shared test database.
+// SubmitOnStartup also sends one message through the application's pipeline before ApplicationReadyEvent.
+@IntegrationTest
+class ChatPersistencePipelineTest {
+
+    private static final long SEGMENT_BYTES = 4096;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChatIdAllocator idAllocator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChatPersistencePipeline applicationPipeline;
+
+    @TempDir
+    private Path journalDir;
+
+    private ChatPersistencePipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void persistedSegmentsAreDeletedUnderSteadyTraffic() throws Exception {
+        pipeline = start();
+        long[] users = users();
+        for (int i = 0; i < 2000; i++) {
+            pipeline.submit(message(users[0], users[1], "steady " + i));
+        }
+        assertThat(pipeline.awaitPersisted(users[0], users[1])).isTrue();
+
+        // Traffic never paused, yet only the open segment (and at most one being released) remains
+        assertThat(journalFiles()).hasSizeLessThanOrEqualTo(2);
+        assertThat(journalBytes()).isLessThanOrEqualTo(2 * SEGMENT_BYTES + 1024);
+        assertThat(count(users[0], users[1], false)).isEqualTo(2000);
+    }
+
+    @Test
+    void awaitPersistedMakesQueuedMessagesVisibleToReadsAndMarkRead() throws Exception {
+        pipeline = start();
+        long[] users = users();
+        for (int i = 0; i < 300; i++) {
+            pipeline.submit(message(users[0], users[1], "queued " + i));
+        }
+
+        assertThat(pipeline.awaitPersisted(users[1], users[0])).isTrue();
+        assertThat(count(users[0], users[1], false)).isEqualTo(300);
+        jdbcTemplate.update("UPDATE chat_messages SET is_read = TRUE WHERE sender_id = ? AND recipient_id = ?",
+                users[0], users[1]);
+        assertThat(count(users[0], users[1], true)).isEqualTo(300);
+    }
+
+    @Test
+    void leftoverSegmentsAreReplayedOnStartup() throws Exception {
+        long[] users = users();
+        ChatMessage lost = message(users[0], users[1], "journaled before a crash");
+        lost.setId(idAllocator.nextId());
+        lost.setIsRead(false);
+        Files.writeString(journalDir.resolve("chat-journal.log.7"),
+                "{\"torn\n" + objectMapper.writeValueAsString(lost) + "\n");
+
+        pipeline = start();
+
+        assertThat(count(users[0], users[1], false)).isEqualTo(1);
+        assertThat(Files.exists(journalDir.resolve("chat-journal.log.7"))).isFalse();
+    }
+
+    @Test
+    void messagesSubmittedBeforeApplicationReadyArePersisted() {
+        assertThat(SubmitOnStartup.failure).isNull();
+        ChatMessage early = SubmitOnStartup.submitted;
+        assertThat(early).isNotNull();
+        assertThat(early.getId()).isNotNull();
+
+        assertThat(applicationPipeline.awaitPersisted(early.getSenderId(), early.getRecipientId())).isTrue();
+        assertThat(count(early.getSenderId(), early.getRecipientId(), false)).isEqualTo(1);
+    }
+
+    @Test
+    void submitIsRejectedUntilStarted() {
+        pipeline = new ChatPersistencePipeline(jdbcTemplate, idAllocator, objectMapper,
+                10000, 200, 50, 200, 5000, false, journalDir.resolve("chat-journal.log").toString(), SEGMENT_BYTES);
+        long[] users = users();
+
+        assertThatThrownBy(() -> pipeline.submit(message(users[0], users[1], "too early")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ChatPersistencePipeline start() {
+        ChatPersistencePipeline started = new ChatPersistencePipeline(jdbcTemplate, idAllocator, objectMapper,
+                10000, 200, 50, 200, 5000, false, journalDir.resolve("chat-journal.log").toString(), SEGMENT_BYTES);
+        started.start();
+        return started;
+    }
+
+    // Ids that no other test uses, so counts are exact
+    private static long[] users() {
+        long base = 1_000_000 + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        return new long[] { base, base + 1 };
+    }
+
+    private static ChatMessage message(long senderId, long recipientId, String content) {
+        return ChatMessage.builder()
+                .senderId(senderId)
+                .recipientId(recipientId)
+                .senderName("sender")
+                .content(content)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private long count(long senderId, long recipientId, boolean read) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_messages WHERE sender_id = ? "
+                + "AND recipient_id = ? AND is_read = ?", Long.class, senderId, recipientId, read);
+    }
+
+    private List<Path> journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.toList();
+        }
+    }
+
+    private long journalBytes() throws IOException {
+        long total = 0;
+        for (Path file : journalFiles()) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+
+    // The web server is already up when ApplicationStartedEvent fires; runners and ApplicationReadyEvent come later
+    @TestConfiguration
+    static class SubmitOnStartup {
+
+        static volatile ChatMessage submitted;
+        static volatile Throwable failure;
+
+        @Autowired
+        private ChatPersistencePipeline pipeline;
+
+        @EventListener(ApplicationStartedEvent.class)
+        void submitBeforeReady() {
+            long[] users = users();
+            try {
+                submitted = pipeline.submit(message(users[0], users[1], "before ready"));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.entity.TimeSlots;
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.AppointmentStatus;
+import com.health.diagnosis.enums.Role;
+import com.health.diagnosis.repository.UserRepository;
+import com.health.diagnosis.support.IntegrationTest;
+import com.health.diagnosis.support.LatencyRecorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static com.health.diagnosis.support.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dashboard latency with 100k appointments: 100 doctors with 1,000 each,
+// spread over 2,000 patients and ~9 weeks around today. Measures the
+// uncached aggregate queries (cache evicted before every call) and the
+// cached hit. Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+@IntegrationTest
+class DashboardStatsBenchmark {
+
+    private static final int DOCTORS = 100;
+    private static final int PATIENTS = 2_000;
+    private static final int PER_DOCTOR = 1_000;
+    private static final int SLOTS_PER_DAY = 16;
+    private static final int WARMUP = 500;
+    private static final int SAMPLES = 5_000;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dashboardLatencyAt100kAppointments() {
+        String run = Long.toString(System.nanoTime());
+        List<User> doctors = userRepository.saveAll(users("dash-doctor-" + run, Role.DOCTOR, DOCTORS));
+        List<User> patients = userRepository.saveAll(users("dash-patient-" + run, Role.PATIENT, PATIENTS));
+        long seeded = seed(doctors, patients);
+        System.out.println("Dashboard benchmark: seeded " + seeded + " appointments");
+        assertThat(seeded).isEqualTo((long) DOCTORS * PER_DOCTOR);
+
+        measure("doctor, uncached", doctors, user -> {
+            dashboardStatsService.evict(user.getId());
+            dashboardStatsService.getStats(user);
+        });
+        measure("patient, uncached", patients, user -> {
+            dashboardStatsService.evict(user.getId());
+            dashboardStatsService.getStats(user);
+        });
+        measure("doctor, cached", doctors, dashboardStatsService::getStats);
+
+        User doctor = doctors.get(0);
+        dashboardStatsService.evict(doctor.getId());
+        assertThat(dashboardStatsService.getStats(doctor).getPendingAppointments()).isPositive();
+    }
+
+    private void measure(String name, List<User> users, Consumer<User> call) {
+        LatencyRecorder latencies = new LatencyRecorder(SAMPLES);
+        for (int i = 0; i < WARMUP + SAMPLES; i++) {
+            User user = users.get(i % users.size());
+            long start = System.nanoTime();
+            call.accept(user);
+            if (i >= WARMUP) {
+                latencies.record(System.nanoTime() - start);
+            }
+        }
+        System.out.println("Dashboard " + name + ": " + latencies.summary());
+    }
+
+    // Straight JDBC so seeding 100k rows takes seconds, not minutes
+    private long seed(List<User> doctors, List<User> patients) {
+        Random random = new Random(42);
+        LocalDate firstDay = LocalDate.now().minusDays(PER_DOCTOR / SLOTS_PER_DAY / 2);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(1_000);
+        long rows = 0;
+        for (User doctor : doctors) {
+            for (int i = 0; i < PER_DOCTOR; i++) {
+                int start = 9 * 60 + (i % SLOTS_PER_DAY) * 30;
+                boolean cancelled = random.nextInt(10) == 0;
+                AppointmentStatus status = cancelled ? AppointmentStatus.CANCELLED
+                        : random.nextBoolean() ? AppointmentStatus.PENDING : AppointmentStatus.CONFIRMED;
+                batch.add(new Object[] {
+                        patients.get(random.nextInt(patients.size())).getId(), doctor.getId(),
+                        Date.valueOf(firstDay.plusDays(i / SLOTS_PER_DAY)), TimeSlots.label(start, start + 30),
+                        start, start + 30, cancelled ? null : start, status.name(), createdAt });
+                if (batch.size() == 1_000) {
+                    rows += insert(batch);
+                }
+            }
+        }
+        return rows + insert(batch);
+    }
+
+    private int insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO appointments (patient_id, doctor_id, appointment_date, time_slot, "
+                + "slot_start, slot_end, active_slot, status, created_at, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private static List<User> users(String prefix, Role role, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(prefix + "-" + i, role));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,126 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.dto.DoctorSearchPage;
+import com.health.diagnosis.support.IntegrationTest;
+import com.health.diagnosis.support.LatencyRecorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Doctor search latency with 50,000 doctors in the index, per query shape
+// and overall. Every shape must stay under a 1 ms p99. Range totals are
+// checked against SQL counts first.
+// Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+@IntegrationTest
+class DoctorSearchBenchmark {
+
+    private static final int DOCTORS = 50_000;
+    private static final int WARMUP = 20_000;
+    private static final int SAMPLES = 20_000;
+    private static final double P99_TARGET_MICROS = 1_000;
+    private static final String[] SPECIALIZATIONS = { "Cardiologist", "Dermatologist", "Neurologist",
+            "Pediatrician", "Orthopedic", "Psychiatrist", "General Physician", "ENT Specialist",
+            "Gynecologist", "Oncologist", "Endocrinologist", "Ophthalmologist" };
+    private static final String[] LANGUAGES = { "English", "Hindi", "Tamil", "Telugu", "Bengali", "Marathi",
+            "Kannada", "Malayalam", "Gujarati", "Punjabi" };
+
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void searchLatencyAt50kDoctors() {
+        seed();
+        long start = System.nanoTime();
+        doctorSearchIndex.rebuild();
+        System.out.printf("Doctor search: index rebuilt in %.0f ms%n", (System.nanoTime() - start) / 1e6);
+
+        assertThat(doctorSearchIndex.search(null, null, 200.0, 800.0, null, false, 0, 20).getTotalElements())
+                .isEqualTo(countDoctors("p.consultation_fee BETWEEN 200 AND 800"));
+        assertThat(doctorSearchIndex.search(null, null, null, 450.0, 4.0, false, 0, 20).getTotalElements())
+                .isEqualTo(countDoctors("p.consultation_fee <= 450 AND p.rating >= 4.0"));
+
+        Random random = new Random(7);
+        Map<String, Supplier<DoctorSearchPage>> queries = Map.of(
+                "no filters", () -> doctorSearchIndex.search(null, null, null, null, null, false, 0, 20),
+                "specialization", () -> doctorSearchIndex.search(pick(random, SPECIALIZATIONS), null,
+                        null, null, null, false, 0, 20),
+                "specialization + language", () -> doctorSearchIndex.search(pick(random, SPECIALIZATIONS),
+                        pick(random, LANGUAGES), null, null, null, false, 0, 20),
+                "all filters", () -> doctorSearchIndex.search(pick(random, SPECIALIZATIONS),
+                        pick(random, LANGUAGES), 300.0, 1200.0, 4.0, true, 0, 20),
+                "fee range, page 50", () -> doctorSearchIndex.search(null, null, 200.0, 800.0, null, false, 50,
+                        20));
+        List<String> names = new ArrayList<>(queries.keySet());
+        names.sort(null);
+
+        LatencyRecorder overall = new LatencyRecorder(SAMPLES);
+        for (String name : names) {
+            Supplier<DoctorSearchPage> query = queries.get(name);
+            LatencyRecorder latencies = new LatencyRecorder(SAMPLES / names.size());
+            long matched = 0;
+            for (int i = 0; i < WARMUP / names.size() + SAMPLES / names.size(); i++) {
+                long begin = System.nanoTime();
+                DoctorSearchPage page = query.get();
+                long elapsed = System.nanoTime() - begin;
+                if (i >= WARMUP / names.size()) {
+                    latencies.record(elapsed);
+                    matched += page.getTotalElements();
+                }
+            }
+            overall.addAll(latencies);
+            System.out.printf("Doctor search, %-26s avg %,d matches, %s%n", name + ":",
+                    matched / latencies.count(), latencies.summary());
+            assertThat(matched).isPositive();
+            assertThat(latencies.percentileMicros(99)).as("p99 for " + name).isLessThan(P99_TARGET_MICROS);
+        }
+        System.out.println("Doctor search, overall: " + overall.summary());
+        assertThat(overall.percentileMicros(99)).as("overall p99").isLessThan(P99_TARGET_MICROS);
+    }
+
+    private long countDoctors(String condition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users u JOIN doctor_profiles p ON p.user_id = u.id "
+                + "WHERE u.role = 'DOCTOR' AND " + condition, Long.class);
+    }
+
+    // Straight JDBC so seeding 50k doctors takes seconds, not minutes
+    private void seed() {
+        String prefix = "search-bench-" + System.nanoTime() + "-";
+        Random random = new Random(42);
+        List<Object[]> users = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            users.add(new Object[] { prefix + i + "@test.local", "Dr. Bench " + i,
+                    pick(random, SPECIALIZATIONS), random.nextInt(4) != 0 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, full_name, role, specialization, "
+                + "is_verified, is_enabled) VALUES (?, 'unused', ?, 'DOCTOR', ?, ?, TRUE)", users);
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM users WHERE email LIKE ? ORDER BY id",
+                Long.class, prefix + "%");
+        List<Object[]> profiles = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            String languages = pick(random, LANGUAGES) + ", " + pick(random, LANGUAGES);
+            profiles.add(new Object[] { id, Math.round(random.nextDouble() * 50) / 10.0, 1 + random.nextInt(30),
+                    100.0 + random.nextInt(20) * 50, languages });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO doctor_profiles (user_id, rating, years_of_experience, "
+                + "consultation_fee, languages_spoken) VALUES (?, ?, ?, ?, ?)", profiles);
+        System.out.printf("Doctor search: seeded %,d doctors%n", ids.size());
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
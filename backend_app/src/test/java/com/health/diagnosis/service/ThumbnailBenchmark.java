@@ -0,0 +1,107 @@
+package com.health.diagnosis.service;
+
+import com.health.diagnosis.support.IntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Thumbnail throughput for typical chat photos: 12 MP and 3 MP JPEGs and
+// 2 MP PNG screenshots. Each source is generated once per hash, so every
+// image is distinct. Measured one at a time (throughput per core) and with
+// the whole pool busy. Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+@IntegrationTest
+class ThumbnailBenchmark {
+
+    private static final int PER_SHAPE = 8;
+    private static final long WAIT_MS = 60_000;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Value("${app.thumbnails.threads:2}")
+    private int threads;
+
+    @Test
+    void thumbnailThroughput() throws IOException {
+        Random random = new Random(42);
+        measureSerial("12 MP JPEG", upload(random, 4000, 3000, "jpeg", 4));
+        measureSerial("3 MP JPEG", upload(random, 2000, 1500, "jpeg", PER_SHAPE));
+        measureSerial("2 MP PNG", upload(random, 1920, 1080, "png", PER_SHAPE));
+
+        List<String> pool = upload(random, 2000, 1500, "jpeg", PER_SHAPE * 2);
+        long start = System.nanoTime();
+        pool.forEach(thumbnailService::schedule);
+        for (String hash : pool) {
+            assertThat(thumbnailService.thumbnail(hash, WAIT_MS)).isPresent();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int busy = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        System.out.printf("Thumbnails, 3 MP JPEG on the pool (%d threads, %d cores): %.1f images/s, "
+                + "%.1f images/s per core%n", threads, Runtime.getRuntime().availableProcessors(),
+                pool.size() / seconds, pool.size() / seconds / busy);
+    }
+
+    // One image at a time, so a single worker (one core) does all the work
+    private void measureSerial(String name, List<String> hashes) throws IOException {
+        // First image warms up the decoder and encoder
+        assertThat(thumbnailService.thumbnail(hashes.get(0), WAIT_MS)).isPresent();
+        long start = System.nanoTime();
+        for (String hash : hashes.subList(1, hashes.size())) {
+            assertThat(thumbnailService.thumbnail(hash, WAIT_MS)).isPresent();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int measured = hashes.size() - 1;
+        System.out.printf("Thumbnails, %-10s one at a time: %.1f images/s per core (%.0f ms each)%n",
+                name + ",", measured / seconds, seconds * 1000 / measured);
+    }
+
+    private List<String> upload(Random random, int width, int height, String format, int count)
+            throws IOException {
+        List<String> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = image(random, width, height, format);
+            hashes.add(attachmentStore.store(new ByteArrayInputStream(bytes), "image/" + format, null).sha256());
+        }
+        return hashes;
+    }
+
+    // Gradient background with scattered shapes: compresses like a photo rather than a flat fill
+    private static byte[] image(Random random, int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), width, height,
+                    new Color(random.nextInt())));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 400; i++) {
+                g.setColor(new Color(random.nextInt()));
+                g.fillOval(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(width / 8),
+                        20 + random.nextInt(height / 8));
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
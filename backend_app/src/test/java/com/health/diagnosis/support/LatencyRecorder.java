@@ -0,0 +1,50 @@
+package com.health.diagnosis.support;
+
+import java.util.Arrays;
+
+// Fixed-size latency sample for the benchmarks; not thread-safe, one per thread
+public class LatencyRecorder {
+
+    private final long[] nanos;
+    private int count;
+
+    public LatencyRecorder(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    public void record(long elapsedNanos) {
+        if (count < nanos.length) {
+            nanos[count++] = elapsedNanos;
+        }
+    }
+
+    public void addAll(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.nanos[i]);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // Nearest-rank percentile in microseconds, 0 when empty
+    public double percentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1000.0;
+    }
+
+    public String summary() {
+        return String.format("n=%d p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", count,
+                percentileMicros(50), percentileMicros(90), percentileMicros(99), percentileMicros(100));
+    }
+}
@@ -0,0 +1,36 @@
+package com.health.diagnosis.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Counts the SQL statements Hibernate prepares on the current thread while a
+// count is open. Registered for the test profile through
+// hibernate.session_factory.statement_inspector; MockMvc runs the request on
+// the test thread, so background jobs never leak into a count.
+// Statements issued through JdbcTemplate bypass Hibernate and are not counted.
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    // Statements seen since start(), in order
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements != null ? statements : List.of();
+    }
+}
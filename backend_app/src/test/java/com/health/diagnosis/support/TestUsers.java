@@ -0,0 +1,21 @@
+package com.health.diagnosis.support;
+
+import com.health.diagnosis.entity.User;
+import com.health.diagnosis.enums.Role;
+
+// Unsaved users for tests and benchmarks. name becomes the full name and the
+// local part of the email, so callers keep it unique per run.
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static User user(String name, Role role) {
+        return User.builder()
+                .email(name + "@test.local")
+                .password("unused")
+                .fullName(name)
+                .role(role)
+                .build();
+    }
+}
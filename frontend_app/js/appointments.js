@@ -88,10 +88,7 @@ window.selectTimeSlot = function (slot, element) {
 // Load doctors for dropdown
 async function loadDoctors() {
     try {
-        const response = await fetch(`${API_BASE}/users/doctors`, {
-            headers: { 'Authorization': `Bearer ${token}` }
-        });
-        const doctors = await response.json();
+        const doctors = await fetchAllUsers(`${API_BASE}/users/doctors?size=500`, token);
 
         const select = document.getElementById('doctorSelect');
         if (!select) return;
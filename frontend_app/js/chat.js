@@ -19,6 +19,8 @@ const headerAvatar = document.getElementById('chat-header-avatar');
 let currentRecipientId = null;
 let currentRecipientName = null;
 let stompClient = null;
+let historyCursor = null; // Cursor for the next older page, null when the start is loaded
+let loadingOlder = false;
 
 // Initialize
 document.addEventListener('DOMContentLoaded', async () => {
@@ -65,6 +67,11 @@ document.addEventListener('DOMContentLoaded', async () => {
         if (e.key === 'Enter') sendMessage(messageInput.value);
     });
 
+    // Scrolling to the top loads older messages
+    messagesArea.addEventListener('scroll', () => {
+        if (messagesArea.scrollTop < 40) loadOlderMessages();
+    });
+
     console.log('[CHAT] Initialization complete');
 });
 
@@ -100,24 +107,11 @@ async function renderChatList() {
     listContainer.innerHTML = '<div style="text-align: center; padding: 1rem;">Loading...</div>';
 
     try {
-        let endpoint = userRole === 'DOCTOR' ? '/users/patients' : '/users/doctors';
+        let endpoint = userRole === 'DOCTOR' ? '/users/patients?size=500' : '/users/doctors?size=500';
         console.log('[CHAT] Fetching from endpoint:', `${API_BASE}${endpoint}`);
         console.log('[CHAT] User role:', userRole);
 
-        const response = await fetch(`${API_BASE}${endpoint}`, {
-            headers: { 'Authorization': `Bearer ${token}` }
-        });
-
-        console.log('[CHAT] Response status:', response.status);
-        console.log('[CHAT] Response ok:', response.ok);
-
-        if (!response.ok) {
-            const errorText = await response.text();
-            console.error('[CHAT] API Error:', errorText);
-            throw new Error('Failed to fetch contacts: ' + response.status);
-        }
-
-        const contacts = await response.json();
+        const contacts = await fetchAllUsers(`${API_BASE}${endpoint}`, token);
         console.log('[CHAT] Contacts received:', contacts.length, contacts);
 
         listContainer.innerHTML = '';
@@ -185,39 +179,28 @@ async function selectChat(id, name, initial) {
 }
 
 async function loadChatHistory(recipientId) {
+    historyCursor = null;
     try {
         messagesArea.innerHTML = '<div style="text-align: center; color: #94a3b8; padding: 1rem; font-size: 0.8rem;">Loading conversation...</div>';
 
-        const response = await fetch(`${API_BASE}/chat/history/${senderId}/${recipientId}`, {
+        const response = await fetch(`${API_BASE}/chat/history/${senderId}/${recipientId}/page?size=50`, {
             headers: { 'Authorization': `Bearer ${token}` }
         });
 
         if (!response.ok) throw new Error('Failed to load history');
 
-        const messages = await response.json();
+        // Pages come newest first; render oldest at the top
+        const page = await response.json();
+        if (recipientId !== currentRecipientId) return; // Another chat was opened meanwhile
+        const messages = page.messages.slice().reverse();
 
         messagesArea.innerHTML = '';
 
         if (messages.length === 0) {
             messagesArea.innerHTML = '<div style="text-align: center; color: #94a3b8; padding: 1rem; font-size: 0.8rem;">Start of conversation</div>';
         } else {
-            messages.forEach(msg => {
-                const bubble = document.createElement('div');
-                bubble.className = 'message';
-
-                if (msg.senderId === senderId) {
-                    bubble.classList.add('msg-sent');
-                } else {
-                    bubble.classList.add('msg-received');
-                }
-
-                // Add message content and timestamp
-                bubble.innerHTML = `
-                    <div>${msg.content}</div>
-                    <div class="message-timestamp">${formatMessageTime(msg.timestamp)}</div>
-                `;
-                messagesArea.appendChild(bubble);
-            });
+            messages.forEach(msg => messagesArea.appendChild(createHistoryBubble(msg)));
+            setHistoryCursor(page);
         }
 
         messagesArea.scrollTop = messagesArea.scrollHeight;
@@ -227,6 +210,68 @@ async function loadChatHistory(recipientId) {
     }
 }
 
+// Fetches the page before the oldest loaded message and prepends it, keeping the scroll position
+async function loadOlderMessages() {
+    if (!historyCursor || loadingOlder) return;
+    const recipientId = currentRecipientId;
+    loadingOlder = true;
+    const control = document.getElementById('load-older');
+    if (control) control.innerText = 'Loading...';
+    try {
+        const response = await fetch(`${API_BASE}/chat/history/${senderId}/${recipientId}/page?cursor=${encodeURIComponent(historyCursor)}&size=50`, {
+            headers: { 'Authorization': `Bearer ${token}` }
+        });
+
+        if (!response.ok) throw new Error('Failed to load older messages');
+
+        const page = await response.json();
+        if (recipientId !== currentRecipientId) return;
+
+        if (control) control.remove();
+        const previousHeight = messagesArea.scrollHeight;
+        const fragment = document.createDocumentFragment();
+        page.messages.slice().reverse().forEach(msg => fragment.appendChild(createHistoryBubble(msg)));
+        messagesArea.insertBefore(fragment, messagesArea.firstChild);
+        setHistoryCursor(page);
+        messagesArea.scrollTop += messagesArea.scrollHeight - previousHeight;
+    } catch (error) {
+        console.error('History error:', error);
+        if (control) control.innerText = 'Load older messages';
+    } finally {
+        loadingOlder = false;
+    }
+}
+
+function setHistoryCursor(page) {
+    historyCursor = page.hasMore ? page.nextCursor : null;
+    if (!historyCursor) return;
+
+    const control = document.createElement('div');
+    control.id = 'load-older';
+    control.style.cssText = 'text-align: center; color: var(--primary); padding: 1rem; font-size: 0.8rem; cursor: pointer;';
+    control.innerText = 'Load older messages';
+    control.addEventListener('click', loadOlderMessages);
+    messagesArea.insertBefore(control, messagesArea.firstChild);
+}
+
+function createHistoryBubble(msg) {
+    const bubble = document.createElement('div');
+    bubble.className = 'message';
+
+    if (msg.senderId === senderId) {
+        bubble.classList.add('msg-sent');
+    } else {
+        bubble.classList.add('msg-received');
+    }
+
+    // Add message content and timestamp
+    bubble.innerHTML = `
+        <div>${msg.content}</div>
+        <div class="message-timestamp">${formatMessageTime(msg.timestamp)}</div>
+    `;
+    return bubble;
+}
+
 // --- WebSocket Logic ---
 
 function connectWebSocket() {
@@ -475,27 +520,36 @@ async function markMessagesAsRead(senderId) {
 }
 
 // ===== FILE UPLOAD FUNCTIONALITY =====
+// Streams the raw file as the request body; the server stores it by content hash
 async function uploadFile(file) {
-    const formData = new FormData();
-    formData.append('file', file);
-    formData.append('userId', senderId);
-
     try {
-        const response = await fetch(`${API_BASE}/chat/upload`, {
+        const response = await fetch(`${API_BASE}/chat/attachments`, {
             method: 'POST',
-            headers: { 'Authorization': `Bearer ${token}` },
-            body: formData
+            headers: {
+                'Authorization': `Bearer ${token}`,
+                'Content-Type': file.type || 'application/octet-stream',
+                'X-File-Name': encodeURIComponent(file.name)
+            },
+            body: file
         });
 
         if (response.ok) {
             const data = await response.json();
+            // Link is server-relative (/api/...); resolve it against the backend origin
+            const origin = API_BASE.replace(/\/api$/, '');
+            data.url = origin + data.url;
+            if (data.thumbnailUrl) data.thumbnailUrl = origin + data.thumbnailUrl;
             return data;
+        } else if (response.status === 413) {
+            throw new Error('File is too large');
+        } else if (response.status === 507) {
+            throw new Error('Your attachment storage quota is full');
         } else {
             throw new Error('Upload failed');
         }
     } catch (error) {
         console.error('File upload error:', error);
-        alert('Failed to upload file');
+        alert(`Failed to upload file: ${error.message}`);
         return null;
     }
 }
@@ -520,8 +574,9 @@ function handleFileSelect(event) {
     uploadFile(file).then(data => {
         if (data) {
             // Send message with attachment
-            const content = file.type.startsWith('image/')
-                ? `<img src="${data.url}" style="max-width: 100%; border-radius: 8px;" alt="${data.filename}"/>`
+            // Images show the small preview and open the original when clicked
+            const content = data.thumbnailUrl
+                ? `<a href="${data.url}" target="_blank"><img src="${data.thumbnailUrl}" style="max-width: 100%; border-radius: 8px;" alt="${data.filename}"/></a>`
                 : `<a href="${data.url}" download="${data.filename}"><i class="fas fa-file"></i> ${data.filename}</a>`;
 
             sendMessageWithAttachment(content, data.url, data.type);
@@ -240,10 +240,10 @@ async function loadRoleSpecificData() {
 
 async function loadAssessmentHistory() {
     try {
-        const response = await fetch(`${API_BASE}/assessment/history`, {
+        const response = await fetch(`${API_BASE}/assessment/history/page?size=10`, {
             headers: { 'Authorization': `Bearer ${token}` }
         });
-        const history = await response.json();
+        const history = (await response.json()).entries;
         const tbody = document.getElementById('assessment-history-list');
 
         if (history.length === 0) {
@@ -271,10 +271,10 @@ async function loadAssessmentHistory() {
 
 async function loadMyPatients() {
     try {
-        const response = await fetch(`${API_BASE}/doctors/my-patients`, {
+        const response = await fetch(`${API_BASE}/doctors/my-patients?size=50`, {
             headers: { 'Authorization': `Bearer ${token}` }
         });
-        const patients = await response.json();
+        const patients = (await response.json()).patients;
         const tbody = document.getElementById('my-patients-list');
 
         if (patients.length === 0) {
@@ -288,7 +288,9 @@ async function loadMyPatients() {
                 <td>${p.email}</td>
                 <td>${p.phone || '-'}</td>
                 <td>
-                    <span style="color: #64748b;">Unknown</span>
+                    ${p.latestRiskLevel
+                        ? `<span style="color: ${getRiskColor(p.latestRiskLevel)}; font-weight: 600;">${p.latestRiskLevel}</span>`
+                        : '<span style="color: #64748b;">Unknown</span>'}
                 </td>
             </tr>
         `).join('');
@@ -18,8 +18,9 @@ async function initNotifications() {
             const user = await response.json();
             currentUserId = user.id;
 
-            // Load initial notifications
+            // Load initial notifications and badge; later badge changes are pushed
             await loadNotifications();
+            updateNotificationBadge();
 
             // Connect to WebSocket for real-time updates
             connectNotificationWebSocket();
@@ -41,8 +42,12 @@ function connectNotificationWebSocket() {
     notificationStompClient.connect({}, () => {
         // Subscribe to user-specific notification topic
         notificationStompClient.subscribe(`/topic/notifications/${currentUserId}`, (message) => {
-            const notification = JSON.parse(message.body);
-            handleNewNotification(notification);
+            const payload = JSON.parse(message.body);
+            if (payload.unreadCount !== undefined) {
+                setNotificationBadge(payload.unreadCount);
+                return;
+            }
+            handleNewNotification(payload);
         });
     });
 }
@@ -57,7 +62,6 @@ async function loadNotifications() {
         if (response.ok) {
             const notifications = await response.json();
             renderNotifications(notifications);
-            updateNotificationBadge();
         }
     } catch (error) {
         console.error('Failed to load notifications:', error);
@@ -73,21 +77,25 @@ async function updateNotificationBadge() {
 
         if (response.ok) {
             const data = await response.json();
-            const badge = document.getElementById('notification-badge');
-            if (badge) {
-                if (data.count > 0) {
-                    badge.textContent = data.count > 9 ? '9+' : data.count;
-                    badge.style.display = 'flex';
-                } else {
-                    badge.style.display = 'none';
-                }
-            }
+            setNotificationBadge(data.count);
         }
     } catch (error) {
         console.error('Failed to update notification badge:', error);
     }
 }
 
+function setNotificationBadge(count) {
+    const badge = document.getElementById('notification-badge');
+    if (badge) {
+        if (count > 0) {
+            badge.textContent = count > 9 ? '9+' : count;
+            badge.style.display = 'flex';
+        } else {
+            badge.style.display = 'none';
+        }
+    }
+}
+
 // Render notifications in dropdown
 function renderNotifications(notifications) {
     const container = document.getElementById('notification-list');
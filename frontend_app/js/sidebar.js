@@ -160,3 +160,24 @@ async function fetchUserName() {
         }
     } catch (e) { console.error(e); }
 }
+
+// Directory listings (/users/doctors, /admin/users/patients, ...) are keyset-paged:
+// follow nextCursor to the last page and return every user
+async function fetchAllUsers(url, token) {
+    const users = [];
+    let cursor = null;
+    do {
+        const separator = url.includes('?') ? '&' : '?';
+        const pageUrl = cursor ? `${url}${separator}cursor=${encodeURIComponent(cursor)}` : url;
+        const response = await fetch(pageUrl, {
+            headers: { 'Authorization': `Bearer ${token}` }
+        });
+        if (!response.ok) {
+            throw new Error('Failed to fetch ' + url + ': ' + response.status);
+        }
+        const page = await response.json();
+        users.push(...page.users);
+        cursor = page.hasMore ? page.nextCursor : null;
+    } while (cursor);
+    return users;
+}